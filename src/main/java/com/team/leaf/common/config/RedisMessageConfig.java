@@ -0,0 +1,30 @@
+package com.team.leaf.common.config;
+
+import com.team.leaf.shopping.cart.util.CartPricingCache;
+import com.team.leaf.shopping.product.product.util.ProductDetailCache;
+import com.team.leaf.shopping.search.util.AutoCompleteDeltaPublisher;
+import com.team.leaf.shopping.search.util.AutoCompleteDeltaSubscriber;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class RedisMessageConfig {
+
+    // 자동 완성 트라이 변경, 상품 상세 캐시 / 장바구니 가격 캐시 무효화 구독
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       AutoCompleteDeltaSubscriber autoCompleteDeltaSubscriber,
+                                                                       ProductDetailCache productDetailCache,
+                                                                       CartPricingCache cartPricingCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(autoCompleteDeltaSubscriber, new ChannelTopic(AutoCompleteDeltaPublisher.CHANNEL));
+        container.addMessageListener(productDetailCache, new ChannelTopic(ProductDetailCache.CHANNEL));
+        container.addMessageListener(cartPricingCache, new ChannelTopic(CartPricingCache.CHANNEL));
+
+        return container;
+    }
+}
@@ -10,8 +10,11 @@ import com.team.leaf.shopping.follow.repository.FollowRepository;
 import com.team.leaf.shopping.product.product.entity.Product;
 import com.team.leaf.shopping.product.product.entity.ProductOption;
 import com.team.leaf.shopping.product.product.repository.ProductRepository;
+import com.team.leaf.shopping.product.product.util.ProductFilterIndex;
+import com.team.leaf.shopping.product.product.util.ProductRanking;
+import com.team.leaf.shopping.product.product.util.ProductSearchIndex;
 import com.team.leaf.shopping.product.review.entity.Review;
-import com.team.leaf.shopping.search.util.Trie;
+import com.team.leaf.shopping.search.util.AutoCompleteDeltaSubscriber;
 import com.team.leaf.shopping.wish.entity.Wish;
 import com.team.leaf.shopping.wish.repository.WishRepository;
 import com.team.leaf.user.account.config.SecurityConfig;
@@ -38,13 +41,21 @@ public class DataLoader implements CommandLineRunner {
     private final CouponRepository couponRepository;
     private final SecurityConfig jwtSecurityConfig;
     private final FollowRepository followRepository;
-    private final Trie trie;
+    private final AutoCompleteDeltaSubscriber autoCompleteDeltaSubscriber;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductRanking productRanking;
+    private final ProductFilterIndex productFilterIndex;
 
     @Override
     @Transactional
     public void run(String... args) {
-        // 트라이 초기 데이터 정렬
-        trie.initTrie();
+        // 트라이 초기 데이터 정렬 ( 다른 노드의 변경은 초기화 이후부터 이어서 반영 )
+        autoCompleteDeltaSubscriber.initTrie();
+
+        // 상품 검색 색인 ( 이후 저장되는 상품은 ProductIndexListener 가 색인 )
+        productSearchIndex.initIndex();
+        productRanking.initRanking();
+        productFilterIndex.initIndex();
 
         // 초기 데이터 저장
         // Account
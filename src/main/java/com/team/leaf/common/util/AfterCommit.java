@@ -0,0 +1,29 @@
+package com.team.leaf.common.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * 트랜잭션이 커밋된 뒤에 실행할 작업 ( 캐시 / 색인 반영 등 )
+ * 롤백된 변경이 반영되거나, 커밋 전에 지운 캐시를 다른 요청이 커밋 전 값으로 다시 채우지 않게 한다.
+ * 트랜잭션 밖에서 부르면 바로 실행한다.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable task) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+}
@@ -39,7 +39,7 @@ public class CartController {
     public ApiResponse updateCart(@PathVariable(name = "productId") Long productId,
                                   @RequestBody CartProductOptionRequest cartProductOptionRequest,
                                   @LogIn AccountDetail accountDetail){
-        return new ApiResponse(cartService.updateCartOption(productId, cartProductOptionRequest));
+        return new ApiResponse(cartService.updateCartOption(productId, cartProductOptionRequest, accountDetail));
     }
 
     @DeleteMapping("/cart")
@@ -0,0 +1,19 @@
+package com.team.leaf.shopping.cart.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 장바구니 가격 계산에 쓰는 상품 쿠폰
+@Getter
+@AllArgsConstructor
+public class CartCouponRate {
+
+    private long couponId;
+
+    private long productId;
+
+    private String couponName;
+
+    private double saleRate;
+
+}
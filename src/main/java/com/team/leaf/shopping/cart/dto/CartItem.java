@@ -0,0 +1,25 @@
+package com.team.leaf.shopping.cart.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 장바구니 한 줄과 담긴 상품 ( 장바구니 조회에서 옵션, 쿠폰을 붙이기 전 )
+@Getter
+@AllArgsConstructor
+public class CartItem {
+
+    private long cartId;
+
+    private long productId;
+
+    private String title;
+
+    private String image;
+
+    private int price;
+
+    private double discountRate;
+
+    private int amount;
+
+}
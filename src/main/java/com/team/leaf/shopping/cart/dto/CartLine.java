@@ -0,0 +1,47 @@
+package com.team.leaf.shopping.cart.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// 장바구니에 담은 상품 한 줄의 상태 ( Redis 장바구니에 JSON 으로 저장하고 DB 에 반영할 때 쓴다 )
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartLine {
+
+    private long productId;
+
+    private int amount;
+
+    // 담은 순서 ( 장바구니 조회 순서 )
+    private long sequence;
+
+    private List<CartProductSelectOptionResponse> selectOptions = new ArrayList<>();
+
+    public void increaseAmount(int amount) {
+        this.amount += amount;
+    }
+
+    public void addSelectOptions(List<CartProductSelectOptionResponse> selectOptions) {
+        this.selectOptions.addAll(selectOptions);
+    }
+
+    // 같은 키의 옵션 값을 바꾼다. 바꾼 옵션이 있으면 true
+    public boolean updateOption(String selectKeyData, String selectValueData) {
+        boolean updated = false;
+
+        for (int i = 0; i < selectOptions.size(); i++) {
+            if (Objects.equals(selectOptions.get(i).getSelectKeyData(), selectKeyData)) {
+                selectOptions.set(i, new CartProductSelectOptionResponse(selectKeyData, selectValueData));
+                updated = true;
+            }
+        }
+
+        return updated;
+    }
+}
@@ -0,0 +1,21 @@
+package com.team.leaf.shopping.cart.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 장바구니에 담긴 상품 ( Redis 장바구니 조회에서 상품 정보를 붙일 때 )
+@Getter
+@AllArgsConstructor
+public class CartProduct {
+
+    private long productId;
+
+    private String title;
+
+    private String image;
+
+    private int price;
+
+    private double discountRate;
+
+}
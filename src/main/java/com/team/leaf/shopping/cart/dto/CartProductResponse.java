@@ -30,4 +30,17 @@ public class CartProductResponse {
 
     private int amount;
 
+    // 할인율을 적용한 한 개 가격
+    private long salePrice;
+
+    // 내려받은 쿠폰 중 할인이 가장 큰 쿠폰 ( 없으면 null )
+    private Long couponId;
+
+    private String couponName;
+
+    private long couponDiscountPrice;
+
+    // 할인율과 쿠폰을 적용한 이 상품의 결제 금액
+    private long totalPrice;
+
 }
@@ -16,4 +16,13 @@ public class CartResponse {
     private String shippingAddress;
 
     private List<CartProductResponse> productResponseList;
+
+    // 정가 합계
+    private long totalProductPrice;
+
+    private long totalDiscountPrice;
+
+    private long totalCouponDiscountPrice;
+
+    private long paymentPrice;
 }
@@ -37,6 +37,10 @@ public class Cart {
         this.amount += amount;
     }
 
+    public void updateAmount(int amount) {
+        this.amount = amount;
+    }
+
     public static Cart createCart(Product product, AccountDetail accountDetail) {
         return Cart.builder()
                 .user(accountDetail)
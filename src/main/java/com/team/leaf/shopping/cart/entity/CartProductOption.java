@@ -17,8 +17,10 @@ import java.util.List;
 @NoArgsConstructor
 public class CartProductOption {
 
+    // IDENTITY 는 insert 마다 키를 받아야 해서 배치가 꺼진다. 키를 50 개씩 미리 받아 옵션을 배치로 넣는다
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_product_option_seq")
+    @SequenceGenerator(name = "cart_product_option_seq", sequenceName = "cart_product_option_seq", allocationSize = 50)
     private long cartProductOptionId;
 
     private String selectKeyData;
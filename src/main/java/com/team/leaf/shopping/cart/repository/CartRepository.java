@@ -8,13 +8,11 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.List;
 import java.util.Optional;
 
-public interface CartRepository extends JpaRepository<Cart, Long> {
+public interface CartRepository extends JpaRepository<Cart, Long>, CustomCartRepository {
 
     Optional<Cart> findCartByUserAndProduct(AccountDetail user, Product product);
 
     Optional<List<Cart>> findAllByUser(AccountDetail accountDetail);
 
     Optional<Cart> findByProductProductId(Long productId);
-
-    void deleteByProductProductIdAndUser(Long productId, AccountDetail accountDetail);
 }
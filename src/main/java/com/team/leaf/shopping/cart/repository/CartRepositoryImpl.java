@@ -0,0 +1,166 @@
+package com.team.leaf.shopping.cart.repository;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.team.leaf.shopping.cart.dto.CartCouponRate;
+import com.team.leaf.shopping.cart.dto.CartItem;
+import com.team.leaf.shopping.cart.dto.CartProduct;
+import com.team.leaf.shopping.cart.dto.CartProductCouponResponse;
+import com.team.leaf.shopping.cart.dto.CartProductOptionResponse;
+import com.team.leaf.shopping.cart.dto.CartProductSelectOptionResponse;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static com.querydsl.core.group.GroupBy.groupBy;
+import static com.querydsl.core.group.GroupBy.list;
+import static com.team.leaf.shopping.cart.entity.QCart.cart;
+import static com.team.leaf.shopping.cart.entity.QCartProductOption.cartProductOption;
+import static com.team.leaf.shopping.coupon.entity.QCoupon.coupon;
+import static com.team.leaf.shopping.coupon.entity.QDownloadCoupon.downloadCoupon;
+import static com.team.leaf.shopping.product.product.entity.QProduct.product;
+import static com.team.leaf.shopping.product.product.entity.QProductOption.productOption;
+
+@RequiredArgsConstructor
+public class CartRepositoryImpl implements CustomCartRepository {
+
+    private final JPAQueryFactory jpaQueryFactory;
+
+    // 사용자의 장바구니와 상품을 한 번에 읽는다 ( 담은 순서 )
+    @Override
+    public List<CartItem> findCartItemsByUserId(long userId) {
+        return jpaQueryFactory.select(Projections.constructor(CartItem.class,
+                        cart.cartId,
+                        product.productId,
+                        product.title,
+                        product.image,
+                        product.price,
+                        product.discountRate,
+                        cart.amount
+                ))
+                .from(cart)
+                .innerJoin(cart.product, product)
+                .where(cart.user.userId.eq(userId))
+                .orderBy(cart.cartId.asc())
+                .fetch();
+    }
+
+    @Override
+    public List<CartProduct> findCartProductsByProductIds(Collection<Long> productIds) {
+        return jpaQueryFactory.select(Projections.constructor(CartProduct.class,
+                        product.productId,
+                        product.title,
+                        product.image,
+                        product.price,
+                        product.discountRate
+                ))
+                .from(product)
+                .where(product.productId.in(productIds))
+                .fetch();
+    }
+
+    // 상품 ID -> 상품 옵션
+    @Override
+    public Map<Long, List<CartProductOptionResponse>> findProductOptionsByProductIds(Collection<Long> productIds) {
+        return jpaQueryFactory.from(productOption)
+                .where(productOption.product.productId.in(productIds))
+                .orderBy(productOption.productOptionId.asc())
+                .transform(groupBy(productOption.product.productId).as(list(Projections.constructor(CartProductOptionResponse.class,
+                        productOption.keyData,
+                        productOption.valueData
+                ))));
+    }
+
+    // 상품 ID -> 상품 쿠폰
+    @Override
+    public Map<Long, List<CartProductCouponResponse>> findProductCouponsByProductIds(Collection<Long> productIds) {
+        return jpaQueryFactory.from(coupon)
+                .where(coupon.product.productId.in(productIds))
+                .orderBy(coupon.couponId.asc())
+                .transform(groupBy(coupon.product.productId).as(list(Projections.constructor(CartProductCouponResponse.class,
+                        coupon.couponName,
+                        coupon.saleRate
+                ))));
+    }
+
+    // 장바구니 ID -> 고른 옵션
+    @Override
+    public Map<Long, List<CartProductSelectOptionResponse>> findSelectOptionsByCartIds(Collection<Long> cartIds) {
+        return jpaQueryFactory.from(cartProductOption)
+                .where(cartProductOption.cart.cartId.in(cartIds))
+                .orderBy(cartProductOption.cartProductOptionId.asc())
+                .transform(groupBy(cartProductOption.cart.cartId).as(list(Projections.constructor(CartProductSelectOptionResponse.class,
+                        cartProductOption.selectKeyData,
+                        cartProductOption.selectValueData
+                ))));
+    }
+
+    @Override
+    public List<CartCouponRate> findCartCouponRatesByProductIds(Collection<Long> productIds) {
+        return jpaQueryFactory.select(Projections.constructor(CartCouponRate.class,
+                        coupon.couponId,
+                        coupon.product.productId,
+                        coupon.couponName,
+                        coupon.saleRate
+                ))
+                .from(coupon)
+                .where(coupon.product.productId.in(productIds))
+                .fetch();
+    }
+
+    @Override
+    public List<Long> findDownloadedCouponIdsByUserId(long userId) {
+        return jpaQueryFactory.select(downloadCoupon.coupon.couponId)
+                .from(downloadCoupon)
+                .where(downloadCoupon.accountDetail.userId.eq(userId))
+                .fetch();
+    }
+
+    /*
+     * 장바구니를 지울 때 엔티티를 하나씩 읽어 지우지 않고 고른 옵션, 장바구니 순으로 IN 조건 delete 두 번에 지운다.
+     * 영속성 컨텍스트를 거치지 않으므로 같은 트랜잭션에서 지운 장바구니를 다시 쓰지 않아야 한다.
+     */
+    @Override
+    public long deleteCartsByUserIdAndProductIds(long userId, Collection<Long> productIds) {
+        if(productIds.isEmpty()) {
+            return 0;
+        }
+
+        jpaQueryFactory.delete(cartProductOption)
+                .where(cartProductOption.cart.cartId.in(JPAExpressions.select(cart.cartId)
+                        .from(cart)
+                        .where(cart.user.userId.eq(userId), cart.product.productId.in(productIds))))
+                .execute();
+
+        return jpaQueryFactory.delete(cart)
+                .where(cart.user.userId.eq(userId), cart.product.productId.in(productIds))
+                .execute();
+    }
+
+    @Override
+    public long deleteCartsByCartIds(Collection<Long> cartIds) {
+        if(cartIds.isEmpty()) {
+            return 0;
+        }
+
+        deleteSelectOptionsByCartIds(cartIds);
+
+        return jpaQueryFactory.delete(cart)
+                .where(cart.cartId.in(cartIds))
+                .execute();
+    }
+
+    @Override
+    public long deleteSelectOptionsByCartIds(Collection<Long> cartIds) {
+        if(cartIds.isEmpty()) {
+            return 0;
+        }
+
+        return jpaQueryFactory.delete(cartProductOption)
+                .where(cartProductOption.cart.cartId.in(cartIds))
+                .execute();
+    }
+}
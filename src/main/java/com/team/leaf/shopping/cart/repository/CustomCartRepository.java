@@ -0,0 +1,35 @@
+package com.team.leaf.shopping.cart.repository;
+
+import com.team.leaf.shopping.cart.dto.CartCouponRate;
+import com.team.leaf.shopping.cart.dto.CartItem;
+import com.team.leaf.shopping.cart.dto.CartProduct;
+import com.team.leaf.shopping.cart.dto.CartProductCouponResponse;
+import com.team.leaf.shopping.cart.dto.CartProductOptionResponse;
+import com.team.leaf.shopping.cart.dto.CartProductSelectOptionResponse;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface CustomCartRepository {
+
+    List<CartItem> findCartItemsByUserId(long userId);
+
+    List<CartProduct> findCartProductsByProductIds(Collection<Long> productIds);
+
+    Map<Long, List<CartProductOptionResponse>> findProductOptionsByProductIds(Collection<Long> productIds);
+
+    Map<Long, List<CartProductCouponResponse>> findProductCouponsByProductIds(Collection<Long> productIds);
+
+    Map<Long, List<CartProductSelectOptionResponse>> findSelectOptionsByCartIds(Collection<Long> cartIds);
+
+    List<CartCouponRate> findCartCouponRatesByProductIds(Collection<Long> productIds);
+
+    List<Long> findDownloadedCouponIdsByUserId(long userId);
+
+    long deleteCartsByUserIdAndProductIds(long userId, Collection<Long> productIds);
+
+    long deleteCartsByCartIds(Collection<Long> cartIds);
+
+    long deleteSelectOptionsByCartIds(Collection<Long> cartIds);
+}
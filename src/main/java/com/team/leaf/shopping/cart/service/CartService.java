@@ -7,9 +7,10 @@ import com.team.leaf.shopping.cart.entity.Cart;
 import com.team.leaf.shopping.cart.entity.CartProductOption;
 import com.team.leaf.shopping.cart.repository.CartProductOptionRepository;
 import com.team.leaf.shopping.cart.repository.CartRepository;
-import com.team.leaf.shopping.coupon.entity.Coupon;
+import com.team.leaf.shopping.cart.util.CartPricing;
+import com.team.leaf.shopping.cart.util.CartPricingEngine;
+import com.team.leaf.shopping.cart.util.HotCartStore;
 import com.team.leaf.shopping.product.product.entity.Product;
-import com.team.leaf.shopping.product.product.entity.ProductOption;
 import com.team.leaf.shopping.product.product.repository.ProductRepository;
 import com.team.leaf.user.account.entity.AccountDetail;
 import jakarta.transaction.Transactional;
@@ -17,7 +18,11 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -26,17 +31,36 @@ public class CartService {
     private final ProductRepository productRepository;
     private final CartRepository cartRepository;
     private final CartProductOptionRepository cartProductOptionRepository;
+    private final HotCartStore hotCartStore;
+    private final CartPricingEngine cartPricingEngine;
 
     @Transactional
     public void addProductToCart(long productId,
                                  CartProductRequest cartProductRequest,
                                  AccountDetail accountDetail) {
+        if(hotCartStore.isEnabled()) {
+            if(!productRepository.existsById(productId)) {
+                throw new RuntimeException("not found Product Data");
+            }
+
+            List<CartProductSelectOptionResponse> selectOptions = new ArrayList<>();
+            for (int i = 0; i < cartProductRequest.getSelectKeyData().size(); i++) {
+                selectOptions.add(new CartProductSelectOptionResponse(cartProductRequest.getSelectKeyData().get(i),
+                        cartProductRequest.getSelectValueData().get(i)));
+            }
+
+            hotCartStore.add(accountDetail.getUserId(), productId, selectOptions);
+            return;
+        }
+
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("not found Product Data"));
 
         Cart cart = cartRepository.findCartByUserAndProduct(accountDetail, product)
                 .orElseGet(() -> cartRepository.save(Cart.createCart(product, accountDetail)));
 
+        // 옵션은 커밋할 때 배치 insert 로 한 번에 들어간다
+        List<CartProductOption> cartProductOptions = new ArrayList<>();
         for (int i = 0; i < cartProductRequest.getSelectKeyData().size(); i++) {
             String key = cartProductRequest.getSelectKeyData().get(i);
             String value = cartProductRequest.getSelectValueData().get(i);
@@ -45,78 +69,172 @@ public class CartService {
                     .selectValueData(value)
                     .cart(cart)
                     .build();
-            cartProductOptionRepository.save(cartProductOption);
+            cartProductOptions.add(cartProductOption);
         }
+        cartProductOptionRepository.saveAll(cartProductOptions);
         cart.increaseAmount(1);
     }
 
+    /*
+     * 장바구니 한 줄마다 상품, 옵션, 쿠폰, 고른 옵션을 지연 로딩하면 담은 상품 수만큼 쿼리가 늘어나므로
+     * 장바구니와 상품을 한 번, 옵션 / 쿠폰 / 고른 옵션을 각각 IN 으로 한 번씩 읽어 ( 최대 4 번 ) 메모리에서 합친다.
+     * 금액은 CartPricingEngine 이 읽은 가격 / 할인율과 캐시된 쿠폰으로 계산한다.
+     */
     public CartResponse getCart(AccountDetail accountDetail) {
-        List<Cart> carts = cartRepository.findAllByUser(accountDetail)
-                .orElseThrow(() -> new RuntimeException("Not Found Cart"));
-        List<CartProductResponse> cartProductResponses = new ArrayList<>();
-        //List<String>[] OptionData = getSelectProductOption(carts);
-        for (Cart cart : carts) {
-            Product product = cart.getProduct();
-            CartProductResponse cartProductResponse = CartProductResponse.builder()
-                    .productOptionResponses(getProductOption(product))
-                    .productCouponResponses(getProductCoupon(product))
-                    .productSelectOptionResponses(getSelectProductOption(cart))
-                    .title(product.getTitle())
-                    .image(product.getImage())
-                    .price(product.getPrice())
-                    .discountRate(product.getDiscountRate())
-                    .amount(cart.getAmount())
-                    .build();
-            cartProductResponses.add(cartProductResponse);
+        if(hotCartStore.isEnabled()) {
+            return getCartFromStore(accountDetail);
+        }
+
+        List<CartItem> cartItems = cartRepository.findCartItemsByUserId(accountDetail.getUserId());
+        List<CartProductResponse> cartProductResponses = new ArrayList<>(cartItems.size());
+
+        // 가격과 할인율은 방금 읽은 장바구니 줄의 값을 쓴다
+        long[] pricedProductIds = new long[cartItems.size()];
+        int[] prices = new int[cartItems.size()];
+        double[] discountRates = new double[cartItems.size()];
+        int[] amounts = new int[cartItems.size()];
+        for (int i = 0; i < cartItems.size(); i++) {
+            pricedProductIds[i] = cartItems.get(i).getProductId();
+            prices[i] = cartItems.get(i).getPrice();
+            discountRates[i] = cartItems.get(i).getDiscountRate();
+            amounts[i] = cartItems.get(i).getAmount();
+        }
+
+        CartPricing pricing = cartPricingEngine.price(accountDetail.getUserId(), pricedProductIds, prices, discountRates, amounts);
+
+        if(!cartItems.isEmpty()) {
+            Set<Long> productIds = new HashSet<>();
+            List<Long> cartIds = new ArrayList<>(cartItems.size());
+
+            for (CartItem cartItem : cartItems) {
+                productIds.add(cartItem.getProductId());
+                cartIds.add(cartItem.getCartId());
+            }
+
+            Map<Long, List<CartProductOptionResponse>> productOptions = cartRepository.findProductOptionsByProductIds(productIds);
+            Map<Long, List<CartProductCouponResponse>> productCoupons = cartRepository.findProductCouponsByProductIds(productIds);
+            Map<Long, List<CartProductSelectOptionResponse>> selectOptions = cartRepository.findSelectOptionsByCartIds(cartIds);
+
+            for (int i = 0; i < cartItems.size(); i++) {
+                CartItem cartItem = cartItems.get(i);
+                cartProductResponses.add(toCartProductResponse(cartItem.getTitle(), cartItem.getImage(),
+                        cartItem.getPrice(), cartItem.getDiscountRate(), cartItem.getAmount(),
+                        productOptions.getOrDefault(cartItem.getProductId(), new ArrayList<>()),
+                        productCoupons.getOrDefault(cartItem.getProductId(), new ArrayList<>()),
+                        selectOptions.getOrDefault(cartItem.getCartId(), new ArrayList<>()),
+                        pricing, i));
+            }
+        }
+
+        return toCartResponse(accountDetail, cartProductResponses, pricing);
+    }
+
+    // Redis 장바구니에 상품 정보, 옵션, 쿠폰을 붙인다 ( 상품 / 옵션 / 쿠폰 최대 3 번 )
+    private CartResponse getCartFromStore(AccountDetail accountDetail) {
+        List<CartLine> lines = hotCartStore.getCart(accountDetail.getUserId());
+
+        Set<Long> productIds = new HashSet<>();
+        for (CartLine line : lines) {
+            productIds.add(line.getProductId());
+        }
+
+        Map<Long, CartProduct> products = new HashMap<>();
+        if(!productIds.isEmpty()) {
+            for (CartProduct cartProduct : cartRepository.findCartProductsByProductIds(productIds)) {
+                products.put(cartProduct.getProductId(), cartProduct);
+            }
+        }
+
+        // 담은 뒤 삭제된 상품 ( 다음 반영 때 장바구니에서도 지워진다 ) 은 빼고 계산한다
+        List<CartLine> pricedLines = new ArrayList<>(lines.size());
+        for (CartLine line : lines) {
+            if(products.containsKey(line.getProductId())) {
+                pricedLines.add(line);
+            }
+        }
+
+        long[] pricedProductIds = new long[pricedLines.size()];
+        int[] prices = new int[pricedLines.size()];
+        double[] discountRates = new double[pricedLines.size()];
+        int[] amounts = new int[pricedLines.size()];
+        for (int i = 0; i < pricedLines.size(); i++) {
+            CartProduct cartProduct = products.get(pricedLines.get(i).getProductId());
+            pricedProductIds[i] = cartProduct.getProductId();
+            prices[i] = cartProduct.getPrice();
+            discountRates[i] = cartProduct.getDiscountRate();
+            amounts[i] = pricedLines.get(i).getAmount();
+        }
+
+        CartPricing pricing = cartPricingEngine.price(accountDetail.getUserId(), pricedProductIds, prices, discountRates, amounts);
+        List<CartProductResponse> cartProductResponses = new ArrayList<>(pricedLines.size());
+
+        if(!pricedLines.isEmpty()) {
+            Map<Long, List<CartProductOptionResponse>> productOptions = cartRepository.findProductOptionsByProductIds(products.keySet());
+            Map<Long, List<CartProductCouponResponse>> productCoupons = cartRepository.findProductCouponsByProductIds(products.keySet());
+
+            for (int i = 0; i < pricedLines.size(); i++) {
+                CartLine line = pricedLines.get(i);
+                CartProduct cartProduct = products.get(line.getProductId());
+
+                cartProductResponses.add(toCartProductResponse(cartProduct.getTitle(), cartProduct.getImage(),
+                        cartProduct.getPrice(), cartProduct.getDiscountRate(), line.getAmount(),
+                        productOptions.getOrDefault(line.getProductId(), new ArrayList<>()),
+                        productCoupons.getOrDefault(line.getProductId(), new ArrayList<>()),
+                        line.getSelectOptions(),
+                        pricing, i));
+            }
         }
+
+        return toCartResponse(accountDetail, cartProductResponses, pricing);
+    }
+
+    private static CartResponse toCartResponse(AccountDetail accountDetail, List<CartProductResponse> cartProductResponses, CartPricing pricing) {
         return CartResponse.builder()
                 .productResponseList(cartProductResponses)
                 .shippingAddress(accountDetail.getShippingAddress())
+                .totalProductPrice(pricing.getTotalProductPrice())
+                .totalDiscountPrice(pricing.getTotalDiscountPrice())
+                .totalCouponDiscountPrice(pricing.getTotalCouponDiscountPrice())
+                .paymentPrice(pricing.getPaymentPrice())
                 .build();
     }
 
-    public List<CartProductOptionResponse> getProductOption(Product product) {
-        List<ProductOption> productOptions = product.getProductOptions();
-        List<CartProductOptionResponse> cartProductOptionResponses = new ArrayList<>();
-        for (ProductOption productOption : productOptions) {
-            CartProductOptionResponse cartProductOptionResponse = CartProductOptionResponse.builder()
-                    .keyData(productOption.getKeyData())
-                    .valueData(productOption.getValueData())
-                    .build();
-            cartProductOptionResponses.add(cartProductOptionResponse);
-        }
-        return cartProductOptionResponses;
+    private static CartProductResponse toCartProductResponse(String title, String image, int price, double discountRate, int amount,
+                                                             List<CartProductOptionResponse> productOptions,
+                                                             List<CartProductCouponResponse> productCoupons,
+                                                             List<CartProductSelectOptionResponse> selectOptions,
+                                                             CartPricing pricing, int line) {
+        return CartProductResponse.builder()
+                .productOptionResponses(productOptions)
+                .productCouponResponses(productCoupons)
+                .productSelectOptionResponses(selectOptions)
+                .title(title)
+                .image(image)
+                .price(price)
+                .discountRate(discountRate)
+                .amount(amount)
+                .salePrice(pricing.salePrice(line))
+                .couponId(pricing.couponId(line))
+                .couponName(pricing.couponName(line))
+                .couponDiscountPrice(pricing.couponDiscountPrice(line))
+                .totalPrice(pricing.totalPrice(line))
+                .build();
     }
 
-    public List<CartProductCouponResponse> getProductCoupon(Product product) {
-        List<Coupon> couponList = product.getCoupons();
-        List<CartProductCouponResponse> cartProductCouponResponseList = new ArrayList<>();
-        for (Coupon coupon : couponList) {
-            CartProductCouponResponse cartProductCouponResponse = CartProductCouponResponse.builder()
-                    .couponName(coupon.getCouponName())
-                    .saleRate(coupon.getSaleRate())
-                    .build();
-            cartProductCouponResponseList.add(cartProductCouponResponse);
-        }
-        return cartProductCouponResponseList;
-    }
+    @Transactional
+    public String updateCartOption(Long productId, CartProductOptionRequest cartProductOptionRequest, AccountDetail accountDetail) {
+        if(hotCartStore.isEnabled()) {
+            if(!hotCartStore.updateOption(accountDetail.getUserId(), productId,
+                    cartProductOptionRequest.getSelectKeyData(), cartProductOptionRequest.getSelectValueData())) {
+                throw new RuntimeException("Not Found Cart");
+            }
 
-    public List<CartProductSelectOptionResponse> getSelectProductOption(Cart carts) {
-        List<CartProductOption> cartProductOption = carts.getCartProductOption();
-        List<CartProductSelectOptionResponse> cartProductSelectOptionResponses = new ArrayList<>();
-        for (CartProductOption cartProductOptions : cartProductOption) {
-            CartProductSelectOptionResponse cartProductSelectOptionResponse = CartProductSelectOptionResponse.builder()
-                    .selectKeyData(cartProductOptions.getSelectKeyData())
-                    .selectValueData(cartProductOptions.getSelectValueData())
-                    .build();
-            cartProductSelectOptionResponses.add(cartProductSelectOptionResponse);
+            return "Success Update";
         }
-        return cartProductSelectOptionResponses;
-    }
 
-    @Transactional
-    public String updateCartOption(Long productId, CartProductOptionRequest cartProductOptionRequest) {
-        Cart cart = cartRepository.findByProductProductId(productId)
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Not Found Cart"));
+        Cart cart = cartRepository.findCartByUserAndProduct(accountDetail, product)
                 .orElseThrow(() -> new RuntimeException("Not Found Cart"));
         List<CartProductOption> cartProductOptions = cartProductOptionRepository.findAllByCart(cart)
                 .orElseThrow(() -> new RuntimeException("Not Found Option"));
@@ -136,9 +254,12 @@ public class CartService {
 
     @Transactional
     public String deleteCart(List<Long> productIds, AccountDetail accountDetail){
-        for(Long productId : productIds){
-            cartRepository.deleteByProductProductIdAndUser(productId,accountDetail);
+        if(hotCartStore.isEnabled()) {
+            hotCartStore.remove(accountDetail.getUserId(), productIds);
+            return "Delete Success";
         }
+
+        cartRepository.deleteCartsByUserIdAndProductIds(accountDetail.getUserId(), productIds);
         return "Delete Success";
     }
 }
@@ -0,0 +1,158 @@
+package com.team.leaf.shopping.cart.service;
+
+import com.team.leaf.shopping.cart.dto.CartItem;
+import com.team.leaf.shopping.cart.dto.CartLine;
+import com.team.leaf.shopping.cart.dto.CartProductSelectOptionResponse;
+import com.team.leaf.shopping.cart.entity.Cart;
+import com.team.leaf.shopping.cart.entity.CartProductOption;
+import com.team.leaf.shopping.cart.repository.CartProductOptionRepository;
+import com.team.leaf.shopping.cart.repository.CartRepository;
+import com.team.leaf.shopping.product.product.entity.Product;
+import com.team.leaf.shopping.product.product.repository.ProductRepository;
+import com.team.leaf.user.account.entity.AccountDetail;
+import com.team.leaf.user.account.repository.AccountRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/*
+ * Redis 장바구니 ( HotCartStore ) 와 Cart / CartProductOption 테이블 사이의 읽기 / 쓰기
+ * Redis 에 없는 사용자의 장바구니는 DB 에서 읽어 올리고, Redis 에서 바뀐 장바구니는 사용자 단위로 통째로 DB 에 맞춘다.
+ */
+@Service
+@RequiredArgsConstructor
+public class CartSyncService {
+
+    private final CartRepository cartRepository;
+    private final CartProductOptionRepository cartProductOptionRepository;
+    private final ProductRepository productRepository;
+    private final AccountRepository accountRepository;
+
+    public List<CartLine> loadCart(long userId) {
+        List<CartItem> cartItems = cartRepository.findCartItemsByUserId(userId);
+
+        if(cartItems.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> cartIds = new ArrayList<>(cartItems.size());
+        for (CartItem cartItem : cartItems) {
+            cartIds.add(cartItem.getCartId());
+        }
+
+        Map<Long, List<CartProductSelectOptionResponse>> selectOptions = cartRepository.findSelectOptionsByCartIds(cartIds);
+        List<CartLine> lines = new ArrayList<>(cartItems.size());
+
+        for (int i = 0; i < cartItems.size(); i++) {
+            CartItem cartItem = cartItems.get(i);
+            lines.add(new CartLine(cartItem.getProductId(), cartItem.getAmount(), i,
+                    new ArrayList<>(selectOptions.getOrDefault(cartItem.getCartId(), new ArrayList<>()))));
+        }
+
+        return lines;
+    }
+
+    /*
+     * 사용자의 장바구니 테이블을 lines 와 같게 만든다. 같은 lines 로 다시 불러도 결과가 같다.
+     * 빠진 장바구니는 IN 조건 delete 로 지우고, 옵션이 바뀐 장바구니는 옵션을 한 번에 지운 뒤 배치 insert 로 다시 넣는다.
+     */
+    @Transactional
+    public void saveCart(long userId, List<CartLine> lines) {
+        AccountDetail user = accountRepository.findById(userId).orElse(null);
+
+        // 탈퇴한 사용자의 장바구니는 버린다
+        if(user == null) {
+            return;
+        }
+
+        Map<Long, CartLine> wanted = new HashMap<>();
+        for (CartLine line : lines) {
+            wanted.put(line.getProductId(), line);
+        }
+
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(wanted.keySet())) {
+            products.put(product.getProductId(), product);
+        }
+
+        List<Cart> carts = cartRepository.findAllByUser(user).orElseGet(ArrayList::new);
+        List<Long> cartIds = new ArrayList<>(carts.size());
+        for (Cart cart : carts) {
+            cartIds.add(cart.getCartId());
+        }
+
+        Map<Long, List<CartProductSelectOptionResponse>> selectOptions = cartIds.isEmpty()
+                ? new HashMap<>() : cartRepository.findSelectOptionsByCartIds(cartIds);
+
+        List<Long> removedCartIds = new ArrayList<>();
+        List<Long> changedCartIds = new ArrayList<>();
+        List<CartProductOption> options = new ArrayList<>();
+
+        for (Cart cart : carts) {
+            long productId = cart.getProduct().getProductId();
+            CartLine line = wanted.remove(productId);
+
+            if(line == null || !products.containsKey(productId)) {
+                removedCartIds.add(cart.getCartId());
+                continue;
+            }
+
+            cart.updateAmount(line.getAmount());
+
+            if(!sameOptions(selectOptions.getOrDefault(cart.getCartId(), new ArrayList<>()), line.getSelectOptions())) {
+                changedCartIds.add(cart.getCartId());
+                addOptions(options, cart, line.getSelectOptions());
+            }
+        }
+
+        cartRepository.deleteCartsByCartIds(removedCartIds);
+        cartRepository.deleteSelectOptionsByCartIds(changedCartIds);
+
+        // 담은 순서대로 만들어야 DB 에서 다시 읽어도 순서가 같다
+        for (CartLine line : lines) {
+            Product product = products.get(line.getProductId());
+
+            // 이미 있는 장바구니이거나 그 사이 삭제된 상품
+            if(!wanted.containsKey(line.getProductId()) || product == null) {
+                continue;
+            }
+
+            Cart cart = cartRepository.save(Cart.createCart(product, user));
+            cart.updateAmount(line.getAmount());
+            addOptions(options, cart, line.getSelectOptions());
+        }
+
+        cartProductOptionRepository.saveAll(options);
+    }
+
+    private static void addOptions(List<CartProductOption> options, Cart cart, List<CartProductSelectOptionResponse> selectOptions) {
+        for (CartProductSelectOptionResponse selectOption : selectOptions) {
+            options.add(CartProductOption.builder()
+                    .selectKeyData(selectOption.getSelectKeyData())
+                    .selectValueData(selectOption.getSelectValueData())
+                    .cart(cart)
+                    .build());
+        }
+    }
+
+    private static boolean sameOptions(List<CartProductSelectOptionResponse> before, List<CartProductSelectOptionResponse> after) {
+        if(before.size() != after.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < before.size(); i++) {
+            if(!Objects.equals(before.get(i).getSelectKeyData(), after.get(i).getSelectKeyData())
+                    || !Objects.equals(before.get(i).getSelectValueData(), after.get(i).getSelectValueData())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
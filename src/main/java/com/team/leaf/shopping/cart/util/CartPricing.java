@@ -0,0 +1,92 @@
+package com.team.leaf.shopping.cart.util;
+
+/*
+ * 장바구니 가격 계산 결과
+ * 줄마다 할인율을 적용한 한 개 가격, 가장 큰 할인의 쿠폰과 쿠폰 할인 금액, 결제 금액을 두고 장바구니 합계를 함께 계산한다.
+ * 상품이 없어진 줄 ( pricing 이 null ) 은 0 원으로 합계에서 빠진다.
+ */
+public class CartPricing {
+
+    private final ProductPricing[] pricings;
+    private final int[] coupons;
+    private final long[] salePrices;
+    private final long[] couponDiscounts;
+    private final long[] totalPrices;
+
+    private long totalProductPrice;
+    private long totalDiscountPrice;
+    private long totalCouponDiscountPrice;
+    private long paymentPrice;
+
+    // userCouponIds 는 오름차순
+    CartPricing(ProductPricing[] pricings, int[] amounts, long[] userCouponIds) {
+        int size = pricings.length;
+
+        this.pricings = pricings;
+        coupons = new int[size];
+        salePrices = new long[size];
+        couponDiscounts = new long[size];
+        totalPrices = new long[size];
+
+        for(int i = 0; i < size; i++) {
+            coupons[i] = -1;
+
+            if(pricings[i] == null) {
+                continue;
+            }
+
+            ProductPricing pricing = pricings[i];
+            long amount = amounts[i];
+            long salePrice = pricing.salePrice();
+            int coupon = pricing.bestCoupon(userCouponIds);
+            long couponDiscount = coupon < 0 ? 0 : pricing.couponDiscount(coupon, salePrice) * amount;
+
+            coupons[i] = coupon;
+            salePrices[i] = salePrice;
+            couponDiscounts[i] = couponDiscount;
+            totalPrices[i] = salePrice * amount - couponDiscount;
+
+            totalProductPrice += pricing.getPrice() * amount;
+            totalDiscountPrice += (pricing.getPrice() - salePrice) * amount;
+            totalCouponDiscountPrice += couponDiscount;
+            paymentPrice += totalPrices[i];
+        }
+    }
+
+    public long salePrice(int line) {
+        return salePrices[line];
+    }
+
+    // 적용한 쿠폰이 없으면 null
+    public Long couponId(int line) {
+        return coupons[line] < 0 ? null : pricings[line].couponId(coupons[line]);
+    }
+
+    public String couponName(int line) {
+        return coupons[line] < 0 ? null : pricings[line].couponName(coupons[line]);
+    }
+
+    public long couponDiscountPrice(int line) {
+        return couponDiscounts[line];
+    }
+
+    public long totalPrice(int line) {
+        return totalPrices[line];
+    }
+
+    public long getTotalProductPrice() {
+        return totalProductPrice;
+    }
+
+    public long getTotalDiscountPrice() {
+        return totalDiscountPrice;
+    }
+
+    public long getTotalCouponDiscountPrice() {
+        return totalCouponDiscountPrice;
+    }
+
+    public long getPaymentPrice() {
+        return paymentPrice;
+    }
+}
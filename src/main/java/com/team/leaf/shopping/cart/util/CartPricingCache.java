@@ -0,0 +1,150 @@
+package com.team.leaf.shopping.cart.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * 장바구니 쿠폰 캐시 ( 상품별 쿠폰, 사용자별 내려받은 쿠폰 ID )
+ * 가격과 할인율은 장바구니를 조회할 때 읽은 값을 쓰므로 캐시하지 않는다.
+ * 쿠폰이나 내려받은 쿠폰이 바뀌면 CartPricingListener 가 커밋된 뒤에 지우고, 다른 서버에는 Redis 채널로 알린다.
+ * 알림을 놓친 서버도 TTL 이 지나면 다시 읽는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CartPricingCache implements MessageListener {
+
+    public static final String CHANNEL = "cart:pricing:invalidate";
+    private static final String PRODUCT = "product:";
+    private static final String USER = "user:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${cart.pricing.max-size:100000}")
+    private int maxSize = 100000;
+
+    @Value("${cart.pricing.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    @Value("${cart.pricing.redis.enabled:true}")
+    private boolean redisEnabled = true;
+
+    private final ConcurrentHashMap<Long, Cached<ProductCoupons>> productCoupons = new ConcurrentHashMap<>();
+
+    // 오름차순 쿠폰 ID
+    private final ConcurrentHashMap<Long, Cached<long[]>> userCoupons = new ConcurrentHashMap<>();
+
+    // 지울 때마다 증가한다. DB 를 읽는 동안 바뀌었으면 이전 값일 수 있으므로 저장하지 않는다
+    private final AtomicLong generation = new AtomicLong();
+
+    private static class Cached<T> {
+        final T value;
+        final long expireAt;
+
+        Cached(T value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public ProductCoupons getProductCoupons(long productId) {
+        return get(productCoupons, productId);
+    }
+
+    public long[] getUserCoupons(long userId) {
+        return get(userCoupons, userId);
+    }
+
+    // generation 은 DB 를 읽기 전에 받은 값
+    public void putProductCoupons(Map<Long, ProductCoupons> coupons, long before) {
+        for(Map.Entry<Long, ProductCoupons> entry : coupons.entrySet()) {
+            put(productCoupons, entry.getKey(), entry.getValue(), before);
+        }
+    }
+
+    public void putUserCoupons(long userId, long[] couponIds, long before) {
+        put(userCoupons, userId, couponIds, before);
+    }
+
+    private static <T> T get(ConcurrentHashMap<Long, Cached<T>> cache, long key) {
+        Cached<T> cached = cache.get(key);
+
+        if(cached == null) {
+            return null;
+        }
+
+        if(cached.expireAt <= System.currentTimeMillis()) {
+            cache.remove(key, cached);
+            return null;
+        }
+
+        return cached.value;
+    }
+
+    private <T> void put(ConcurrentHashMap<Long, Cached<T>> cache, long key, T value, long before) {
+        // 가득 차면 비운다. 상품 수만큼만 차므로 드물다
+        if(cache.size() >= maxSize) {
+            cache.clear();
+        }
+
+        cache.put(key, new Cached<>(value, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds)));
+
+        // 넣는 사이에 지웠으면 넣은 값을 다시 뺀다
+        if(generation.get() != before) {
+            cache.remove(key);
+        }
+    }
+
+    public void invalidateProduct(long productId) {
+        removeLocal(PRODUCT + productId);
+        publish(PRODUCT + productId);
+    }
+
+    public void invalidateUser(long userId) {
+        removeLocal(USER + userId);
+        publish(USER + userId);
+    }
+
+    private void removeLocal(String target) {
+        generation.incrementAndGet();
+
+        if(target.startsWith(PRODUCT)) {
+            productCoupons.remove(Long.parseLong(target.substring(PRODUCT.length())));
+        } else if(target.startsWith(USER)) {
+            userCoupons.remove(Long.parseLong(target.substring(USER.length())));
+        }
+    }
+
+    private void publish(String target) {
+        if(!redisEnabled) {
+            return;
+        }
+
+        try {
+            redisTemplate.convertAndSend(CHANNEL, target);
+        } catch (RuntimeException e) {
+            log.error("Failed to publish cart pricing invalidation : {}", e.getMessage());
+        }
+    }
+
+    // 다른 서버에서 바뀐 상품 / 사용자
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        removeLocal(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+}
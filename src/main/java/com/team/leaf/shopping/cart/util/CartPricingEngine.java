@@ -0,0 +1,100 @@
+package com.team.leaf.shopping.cart.util;
+
+import com.team.leaf.shopping.cart.dto.CartCouponRate;
+import com.team.leaf.shopping.cart.repository.CartRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * 장바구니 가격 계산
+ * 상품 가격에 할인율을 적용하고, 사용자가 내려받은 쿠폰 중 그 상품에 쓸 수 있는 가장 큰 할인 쿠폰을 줄마다 하나 적용한다.
+ * 가격과 할인율은 호출하는 쪽이 장바구니와 함께 읽은 값을 받는다 ( 다른 서버에서 바뀐 가격이 캐시에 남지 않도록 ).
+ * 상품별 쿠폰과 사용자의 쿠폰 ID 는 CartPricingCache 에서 읽고, 없는 것만 IN 으로 한 번에 읽어 채운다.
+ */
+@Component
+@RequiredArgsConstructor
+public class CartPricingEngine {
+
+    private final CartPricingCache cartPricingCache;
+    private final CartRepository cartRepository;
+
+    public CartPricing price(long userId, long[] productIds, int[] prices, double[] discountRates, int[] amounts) {
+        if(productIds.length == 0) {
+            return new CartPricing(new ProductPricing[0], amounts, new long[0]);
+        }
+
+        ProductCoupons[] coupons = new ProductCoupons[productIds.length];
+        List<Long> missing = null;
+
+        for(int i = 0; i < productIds.length; i++) {
+            coupons[i] = cartPricingCache.getProductCoupons(productIds[i]);
+
+            if(coupons[i] == null) {
+                if(missing == null) {
+                    missing = new ArrayList<>();
+                }
+                missing.add(productIds[i]);
+            }
+        }
+
+        if(missing != null) {
+            Map<Long, ProductCoupons> loaded = loadProductCoupons(missing);
+
+            for(int i = 0; i < productIds.length; i++) {
+                if(coupons[i] == null) {
+                    coupons[i] = loaded.get(productIds[i]);
+                }
+            }
+        }
+
+        ProductPricing[] pricings = new ProductPricing[productIds.length];
+        for(int i = 0; i < productIds.length; i++) {
+            pricings[i] = new ProductPricing(prices[i], discountRates[i], coupons[i]);
+        }
+
+        return new CartPricing(pricings, amounts, userCoupons(userId));
+    }
+
+    // 쿠폰이 없는 상품도 빈 쿠폰으로 캐시한다
+    private Map<Long, ProductCoupons> loadProductCoupons(List<Long> productIds) {
+        long before = cartPricingCache.generation();
+
+        Map<Long, List<CartCouponRate>> rates = new HashMap<>();
+        for(CartCouponRate coupon : cartRepository.findCartCouponRatesByProductIds(productIds)) {
+            rates.computeIfAbsent(coupon.getProductId(), productId -> new ArrayList<>()).add(coupon);
+        }
+
+        Map<Long, ProductCoupons> coupons = new HashMap<>();
+        for(Long productId : productIds) {
+            coupons.put(productId, new ProductCoupons(rates.getOrDefault(productId, List.of())));
+        }
+
+        cartPricingCache.putProductCoupons(coupons, before);
+
+        return coupons;
+    }
+
+    private long[] userCoupons(long userId) {
+        long[] cached = cartPricingCache.getUserCoupons(userId);
+
+        if(cached != null) {
+            return cached;
+        }
+
+        long before = cartPricingCache.generation();
+        long[] couponIds = cartRepository.findDownloadedCouponIdsByUserId(userId).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+        Arrays.sort(couponIds);
+
+        cartPricingCache.putUserCoupons(userId, couponIds, before);
+
+        return couponIds;
+    }
+}
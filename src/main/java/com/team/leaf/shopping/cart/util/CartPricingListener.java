@@ -0,0 +1,44 @@
+package com.team.leaf.shopping.cart.util;
+
+import com.team.leaf.common.util.AfterCommit;
+import com.team.leaf.shopping.coupon.entity.Coupon;
+import com.team.leaf.shopping.coupon.entity.DownloadCoupon;
+import com.team.leaf.shopping.product.product.entity.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/*
+ * 장바구니 쿠폰 캐시 값 ( 상품 쿠폰, 내려받은 쿠폰 ) 이 바뀌면 커밋된 뒤에 캐시에서 지운다.
+ */
+@Component
+@RequiredArgsConstructor
+public class CartPricingListener {
+
+    private final CartPricingCache cartPricingCache;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void invalidate(Object entity) {
+        if(entity instanceof Coupon) {
+            invalidateProduct(((Coupon) entity).getProduct());
+        } else if(entity instanceof DownloadCoupon) {
+            DownloadCoupon downloadCoupon = (DownloadCoupon) entity;
+
+            if(downloadCoupon.getAccountDetail() != null) {
+                long userId = downloadCoupon.getAccountDetail().getUserId();
+                AfterCommit.run(() -> cartPricingCache.invalidateUser(userId));
+            }
+        }
+    }
+
+    private void invalidateProduct(Product product) {
+        if(product != null) {
+            long productId = product.getProductId();
+            AfterCommit.run(() -> cartPricingCache.invalidateProduct(productId));
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.team.leaf.shopping.cart.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.team.leaf.shopping.cart.dto.CartLine;
+import com.team.leaf.shopping.cart.dto.CartProductSelectOptionResponse;
+import com.team.leaf.shopping.cart.service.CartSyncService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/*
+ * Redis 장바구니 ( cart.redis.enabled 일 때 )
+ * 사용자마다 해시 하나 ( cart:user:{userId} ) 에 상품 ID -> 장바구니 한 줄 ( CartLine JSON ) 을 두고 읽기 / 쓰기를 여기서 처리한다.
+ * 처음 보는 사용자는 DB 에서 읽어 올린다. 해시를 바꾸면 사용자를 cart:dirty 에 넣고,
+ * 주기적으로 바뀐 사용자의 장바구니를 통째로 DB 에 반영한다 ( write-behind ).
+ * 바꿀 때마다 _version 을 올리고 DB 에 반영한 버전을 _flushed 에 남겨, 반영 중에 서버가 내려가도 시작할 때 다시 반영한다.
+ * 해시 필드와 값은 문자열이어야 하므로 StringRedisTemplate 을 쓴다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotCartStore {
+
+    private static final String KEY_PREFIX = "cart:user:";
+    private static final String DIRTY_KEY = "cart:dirty";
+    private static final String LOCK_PREFIX = "cart:flush-lock:";
+
+    // 상품 ID 가 아닌 필드는 _ 로 시작한다
+    private static final String LOADED_FIELD = "_loaded";
+    private static final String VERSION_FIELD = "_version";
+    private static final String FLUSHED_FIELD = "_flushed";
+
+    private static final int MAX_RETRY = 10;
+    private static final long LOCK_SECONDS = 60;
+
+    // 자기가 잡은 락일 때만 지운다 ( 반영이 오래 걸려 락이 만료된 뒤 다른 서버가 잡은 락을 지우지 않도록 )
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private static final JsonMapper MAPPER = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final CartSyncService cartSyncService;
+
+    @Value("${cart.redis.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cart.redis.flush-batch-size:100}")
+    private long flushBatchSize = 100;
+
+    // DB 에 반영한 뒤 바뀌지 않은 장바구니를 Redis 에 남겨 두는 시간
+    @Value("${cart.redis.ttl-hours:168}")
+    private long ttlHours = 168;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 담은 순서의 장바구니
+    public List<CartLine> getCart(long userId) {
+        Map<Object, Object> hash = stringRedisTemplate.opsForHash().entries(keyOf(userId));
+
+        if(!hash.containsKey(LOADED_FIELD)) {
+            return update(userId, lines -> false);
+        }
+
+        return sorted(decode(hash));
+    }
+
+    public void add(long userId, long productId, List<CartProductSelectOptionResponse> selectOptions) {
+        update(userId, lines -> {
+            CartLine line = lines.get(productId);
+
+            if(line == null) {
+                long sequence = lines.values().stream().mapToLong(CartLine::getSequence).max().orElse(-1) + 1;
+                line = new CartLine(productId, 0, sequence, new ArrayList<>());
+                lines.put(productId, line);
+            }
+
+            line.addSelectOptions(selectOptions);
+            line.increaseAmount(1);
+            return true;
+        });
+    }
+
+    // 장바구니에 그 상품이 없으면 false
+    public boolean updateOption(long userId, long productId, String selectKeyData, String selectValueData) {
+        boolean[] found = new boolean[1];
+
+        update(userId, lines -> {
+            CartLine line = lines.get(productId);
+            found[0] = line != null;
+
+            return line != null && line.updateOption(selectKeyData, selectValueData);
+        });
+
+        return found[0];
+    }
+
+    public void remove(long userId, Collection<Long> productIds) {
+        update(userId, lines -> lines.keySet().removeAll(productIds));
+    }
+
+    /*
+     * 해시를 읽어 change 를 적용하고 달라진 필드만 쓴다. WATCH 한 해시를 그 사이 다른 요청이 바꾸면 처음부터 다시 한다.
+     * change 가 true 를 반환하면 버전을 올리고 반영할 사용자로 표시한다. 해시가 없으면 DB 에서 읽은 장바구니에 적용한다.
+     */
+    private List<CartLine> update(long userId, Predicate<Map<Long, CartLine>> change) {
+        String key = keyOf(userId);
+        Map<Long, CartLine> lines = new HashMap<>();
+
+        for(int attempt = 0; attempt < MAX_RETRY; attempt++) {
+            Boolean committed = stringRedisTemplate.execute(new SessionCallback<Boolean>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Boolean execute(RedisOperations operations) throws DataAccessException {
+                    operations.watch(key);
+
+                    Map<Object, Object> hash = operations.opsForHash().entries(key);
+                    boolean loaded = hash.containsKey(LOADED_FIELD);
+
+                    lines.clear();
+                    lines.putAll(loaded ? decode(hash) : toMap(cartSyncService.loadCart(userId)));
+
+                    boolean changed = change.test(lines);
+
+                    Map<String, String> fields = new HashMap<>();
+                    List<Object> removed = new ArrayList<>();
+
+                    for(CartLine line : lines.values()) {
+                        String field = String.valueOf(line.getProductId());
+                        String value = encode(line);
+
+                        if(!value.equals(hash.get(field))) {
+                            fields.put(field, value);
+                        }
+                    }
+
+                    for(Object field : hash.keySet()) {
+                        if(!field.toString().startsWith("_") && !lines.containsKey(Long.parseLong(field.toString()))) {
+                            removed.add(field);
+                        }
+                    }
+
+                    if(!loaded) {
+                        fields.put(LOADED_FIELD, "1");
+                    }
+
+                    if(fields.isEmpty() && removed.isEmpty()) {
+                        operations.unwatch();
+                        return true;
+                    }
+
+                    operations.multi();
+
+                    if(!fields.isEmpty()) {
+                        operations.opsForHash().putAll(key, fields);
+                    }
+                    if(!removed.isEmpty()) {
+                        operations.opsForHash().delete(key, removed.toArray());
+                    }
+
+                    if(changed) {
+                        operations.opsForHash().increment(key, VERSION_FIELD, 1);
+                        operations.persist(key);
+                        operations.opsForSet().add(DIRTY_KEY, String.valueOf(userId));
+                    } else {
+                        operations.expire(key, ttlHours, TimeUnit.HOURS);
+                    }
+
+                    // 그 사이 해시가 바뀌어 취소되면 결과가 비어 있다
+                    List<Object> results = operations.exec();
+                    return results != null && !results.isEmpty();
+                }
+            });
+
+            if(Boolean.TRUE.equals(committed)) {
+                return sorted(lines);
+            }
+        }
+
+        throw new RuntimeException("Cart is being updated concurrently");
+    }
+
+    @Scheduled(fixedDelayString = "${cart.redis.flush-interval-ms:5000}")
+    public void flush() {
+        if(!enabled) {
+            return;
+        }
+
+        flushDirty();
+    }
+
+    /*
+     * 반영 표시를 꺼낸 뒤 DB 에 쓰기 전에 서버가 내려간 장바구니 ( 버전과 반영한 버전이 다른 해시 ) 를 다시 표시하고 모두 반영한다.
+     * 설정을 끈 뒤에도 Redis 에만 남은 변경이 DB 에 들어가도록 설정과 관계없이 실행한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        try {
+            ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+
+            try (Cursor<String> keys = stringRedisTemplate.scan(options)) {
+                while(keys.hasNext()) {
+                    String key = keys.next();
+                    List<Object> versions = stringRedisTemplate.opsForHash().multiGet(key, List.of(VERSION_FIELD, FLUSHED_FIELD));
+
+                    if(!Objects.equals(versions.get(0), versions.get(1))) {
+                        stringRedisTemplate.opsForSet().add(DIRTY_KEY, key.substring(KEY_PREFIX.length()));
+                    }
+                }
+            }
+
+            while(flushDirty() > 0) {
+                // 반영할 장바구니가 없거나 모두 실패할 때까지
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to reconcile carts : {}", e.getMessage());
+        }
+    }
+
+    // 반영한 사용자 수
+    private int flushDirty() {
+        List<String> userIds = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, flushBatchSize);
+
+        if(userIds == null) {
+            return 0;
+        }
+
+        int flushed = 0;
+
+        for(String userId : userIds) {
+            if(flushUser(Long.parseLong(userId))) {
+                flushed++;
+            }
+        }
+
+        return flushed;
+    }
+
+    private boolean flushUser(long userId) {
+        String key = keyOf(userId);
+        String lockKey = LOCK_PREFIX + userId;
+        String lockToken = UUID.randomUUID().toString();
+
+        // 다른 서버가 같은 사용자를 반영하는 중이면 다음 주기로 미룬다 ( 먼저 읽은 상태가 나중에 커밋되지 않도록 )
+        if(!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(lockKey, lockToken, LOCK_SECONDS, TimeUnit.SECONDS))) {
+            stringRedisTemplate.opsForSet().add(DIRTY_KEY, String.valueOf(userId));
+            return false;
+        }
+
+        try {
+            Map<Object, Object> hash = stringRedisTemplate.opsForHash().entries(key);
+
+            if(hash.containsKey(LOADED_FIELD)) {
+                cartSyncService.saveCart(userId, sorted(decode(hash)));
+
+                // 반영하는 사이 바뀌었으면 cart:dirty 에 다시 들어가 있다
+                Object version = hash.get(VERSION_FIELD);
+                if(version != null) {
+                    stringRedisTemplate.opsForHash().put(key, FLUSHED_FIELD, version.toString());
+                }
+                stringRedisTemplate.expire(key, ttlHours, TimeUnit.HOURS);
+            }
+
+            return true;
+        } catch (RuntimeException e) {
+            stringRedisTemplate.opsForSet().add(DIRTY_KEY, String.valueOf(userId));
+            log.error("Failed to flush cart : {}", e.getMessage());
+            return false;
+        } finally {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, List.of(lockKey), lockToken);
+        }
+    }
+
+    private static String keyOf(long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private static Map<Long, CartLine> decode(Map<Object, Object> hash) {
+        Map<Long, CartLine> lines = new HashMap<>();
+
+        for(Map.Entry<Object, Object> entry : hash.entrySet()) {
+            if(entry.getKey().toString().startsWith("_")) {
+                continue;
+            }
+
+            try {
+                CartLine line = MAPPER.readValue(entry.getValue().toString(), CartLine.class);
+                lines.put(line.getProductId(), line);
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Invalid cart data : " + entry.getKey());
+            }
+        }
+
+        return lines;
+    }
+
+    private static String encode(CartLine line) {
+        try {
+            return MAPPER.writeValueAsString(line);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Invalid cart data : " + line.getProductId());
+        }
+    }
+
+    private static Map<Long, CartLine> toMap(List<CartLine> lines) {
+        Map<Long, CartLine> result = new HashMap<>();
+
+        for(CartLine line : lines) {
+            result.put(line.getProductId(), line);
+        }
+
+        return result;
+    }
+
+    private static List<CartLine> sorted(Map<Long, CartLine> lines) {
+        List<CartLine> result = new ArrayList<>(lines.values());
+        result.sort(Comparator.comparingLong(CartLine::getSequence));
+
+        return result;
+    }
+}
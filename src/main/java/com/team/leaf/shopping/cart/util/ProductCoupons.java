@@ -0,0 +1,65 @@
+package com.team.leaf.shopping.cart.util;
+
+import com.team.leaf.shopping.cart.dto.CartCouponRate;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * 상품 하나의 쿠폰 ( CartPricingCache 에 캐시한다 )
+ * 할인율이 큰 순서로 두어 사용자가 가진 첫 쿠폰이 가장 큰 할인이 되게 한다. 할인율은 0.01 퍼센트 단위 정수로 바꿔 둔다.
+ */
+public class ProductCoupons {
+
+    static final long BASIS = 10000;
+
+    private final long[] couponIds;
+    private final String[] couponNames;
+    private final long[] couponBasisPoints;
+
+    public ProductCoupons(List<CartCouponRate> coupons) {
+        CartCouponRate[] sorted = coupons.toArray(new CartCouponRate[0]);
+        Arrays.sort(sorted, Comparator.comparingDouble(CartCouponRate::getSaleRate).reversed()
+                .thenComparingLong(CartCouponRate::getCouponId));
+
+        couponIds = new long[sorted.length];
+        couponNames = new String[sorted.length];
+        couponBasisPoints = new long[sorted.length];
+
+        for(int i = 0; i < sorted.length; i++) {
+            couponIds[i] = sorted[i].getCouponId();
+            couponNames[i] = sorted[i].getCouponName();
+            couponBasisPoints[i] = basisPoints(sorted[i].getSaleRate());
+        }
+    }
+
+    // 0 ~ 100 퍼센트
+    static long basisPoints(double rate) {
+        return Math.max(0, Math.min(BASIS, Math.round(rate * 100)));
+    }
+
+    // 정렬된 couponIds 중 이 상품에 쓸 수 있는 가장 큰 할인 쿠폰의 위치, 없으면 -1
+    public int bestCoupon(long[] userCouponIds) {
+        for(int i = 0; i < couponIds.length; i++) {
+            if(Arrays.binarySearch(userCouponIds, couponIds[i]) >= 0) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    // 할인된 한 개 가격에 쿠폰을 적용한 할인 금액
+    public long couponDiscount(int coupon, long salePrice) {
+        return salePrice * couponBasisPoints[coupon] / BASIS;
+    }
+
+    public long couponId(int coupon) {
+        return couponIds[coupon];
+    }
+
+    public String couponName(int coupon) {
+        return couponNames[coupon];
+    }
+}
@@ -0,0 +1,44 @@
+package com.team.leaf.shopping.cart.util;
+
+/*
+ * 장바구니 가격 계산에 쓰는 상품 하나의 값 ( 가격, 할인율, 상품 쿠폰 )
+ * 가격과 할인율은 장바구니를 조회하며 읽은 값을 그대로 쓰고, 쿠폰만 캐시에서 가져온다.
+ * 할인율은 0.01 퍼센트 단위 정수로 바꿔 두고, 할인 금액은 원 단위에서 버린다.
+ */
+public class ProductPricing {
+
+    private final long price;
+    private final long discountBasisPoints;
+    private final ProductCoupons coupons;
+
+    public ProductPricing(int price, double discountRate, ProductCoupons coupons) {
+        this.price = price;
+        this.discountBasisPoints = ProductCoupons.basisPoints(discountRate);
+        this.coupons = coupons;
+    }
+
+    public long getPrice() {
+        return price;
+    }
+
+    // 할인율을 적용한 한 개 가격
+    public long salePrice() {
+        return price - price * discountBasisPoints / ProductCoupons.BASIS;
+    }
+
+    public int bestCoupon(long[] userCouponIds) {
+        return coupons.bestCoupon(userCouponIds);
+    }
+
+    public long couponDiscount(int coupon, long salePrice) {
+        return coupons.couponDiscount(coupon, salePrice);
+    }
+
+    public long couponId(int coupon) {
+        return coupons.couponId(coupon);
+    }
+
+    public String couponName(int coupon) {
+        return coupons.couponName(coupon);
+    }
+}
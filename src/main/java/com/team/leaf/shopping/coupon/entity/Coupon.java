@@ -1,11 +1,14 @@
 package com.team.leaf.shopping.coupon.entity;
 
+import com.team.leaf.shopping.cart.util.CartPricingListener;
 import com.team.leaf.shopping.coupon.dto.CouponRequest;
 import com.team.leaf.shopping.product.product.entity.Product;
+import com.team.leaf.shopping.product.product.util.ProductDetailCacheListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
+@EntityListeners({ProductDetailCacheListener.class, CartPricingListener.class})
 @Getter
 @Builder
 @NoArgsConstructor
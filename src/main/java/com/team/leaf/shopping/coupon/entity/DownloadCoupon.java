@@ -1,5 +1,6 @@
 package com.team.leaf.shopping.coupon.entity;
 
+import com.team.leaf.shopping.cart.util.CartPricingListener;
 import com.team.leaf.user.account.entity.AccountDetail;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -8,6 +9,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners(CartPricingListener.class)
 @Getter
 @Builder
 @NoArgsConstructor
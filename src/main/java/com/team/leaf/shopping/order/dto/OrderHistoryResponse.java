@@ -0,0 +1,22 @@
+package com.team.leaf.shopping.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public class OrderHistoryResponse {
+
+    // 상태별 주문 수 ( 상태 필터와 관계없이 전체 )
+    private Map<String, Long> statusCounts;
+
+    // 최근 주문 순
+    private List<OrderRes> orders;
+
+    // 다음 페이지 요청에 넘길 커서 ( 마지막 주문 ID ). 마지막 페이지이면 null
+    private Long nextCursor;
+
+}
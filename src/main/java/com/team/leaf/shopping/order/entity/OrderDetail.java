@@ -9,6 +9,10 @@ import lombok.Getter;
 import java.time.LocalDateTime;
 
 @Entity
+// 상태별 최근 주문 페이지. 상태 없이 볼 때는 사용자 외래 키 색인 ( 뒤에 주문 ID 가 붙는다 ) 을 쓴다
+@Table(indexes = {
+        @Index(name = "idx_order_detail_user_status", columnList = "accountDetail_userId, status, orderId")
+})
 @Getter
 public class OrderDetail {
 
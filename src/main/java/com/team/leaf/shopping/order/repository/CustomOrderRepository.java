@@ -0,0 +1,14 @@
+package com.team.leaf.shopping.order.repository;
+
+import com.team.leaf.shopping.order.dto.OrderRes;
+
+import java.util.List;
+import java.util.Map;
+
+public interface CustomOrderRepository {
+
+    List<OrderRes> findOrdersByUserId(long userId, String status, Long cursor, int size);
+
+    Map<String, Long> countOrdersByStatus(long userId);
+
+}
@@ -0,0 +1,77 @@
+package com.team.leaf.shopping.order.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.team.leaf.shopping.order.dto.OrderRes;
+import lombok.RequiredArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.team.leaf.shopping.order.entity.QOrderDetail.orderDetail;
+import static com.team.leaf.shopping.product.product.entity.QProduct.product;
+import static com.team.leaf.user.account.entity.QShippingAddress.shippingAddress;
+
+@RequiredArgsConstructor
+public class OrderRepositoryImpl implements CustomOrderRepository {
+
+    private final JPAQueryFactory jpaQueryFactory;
+
+    /*
+     * 주문, 상품, 배송지를 한 번에 읽어 응답 DTO 로 만든다.
+     * 최근 주문 ( 주문 ID 내림차순 ) 부터 cursor 보다 작은 주문 ID 를 size 개 읽는다 ( 사용자, 상태, 주문 ID 색인 )
+     */
+    @Override
+    public List<OrderRes> findOrdersByUserId(long userId, String status, Long cursor, int size) {
+        return jpaQueryFactory.select(Projections.constructor(OrderRes.class,
+                        orderDetail.orderId,
+                        product.productId,
+                        orderDetail.productCount,
+                        orderDetail.totalPrice,
+                        orderDetail.commission,
+                        orderDetail.status,
+                        product.title,
+                        product.price,
+                        shippingAddress.recipient,
+                        shippingAddress.phone,
+                        shippingAddress.address,
+                        shippingAddress.detailedAddress,
+                        orderDetail.orderDate
+                ))
+                .from(orderDetail)
+                .innerJoin(orderDetail.product, product)
+                .leftJoin(orderDetail.shippingAddress, shippingAddress)
+                .where(orderDetail.accountDetail.userId.eq(userId), statusEq(status), orderIdLt(cursor))
+                .orderBy(orderDetail.orderId.desc())
+                .limit(size)
+                .fetch();
+    }
+
+    // 상태 -> 주문 수
+    @Override
+    public Map<String, Long> countOrdersByStatus(long userId) {
+        List<Tuple> counts = jpaQueryFactory.select(orderDetail.status, orderDetail.count())
+                .from(orderDetail)
+                .where(orderDetail.accountDetail.userId.eq(userId), orderDetail.status.isNotNull())
+                .groupBy(orderDetail.status)
+                .fetch();
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        for(Tuple count : counts) {
+            result.put(count.get(orderDetail.status), count.get(orderDetail.count()));
+        }
+
+        return result;
+    }
+
+    private BooleanExpression statusEq(String status) {
+        return status != null ? orderDetail.status.eq(status) : null;
+    }
+
+    private BooleanExpression orderIdLt(Long cursor) {
+        return cursor != null ? orderDetail.orderId.lt(cursor) : null;
+    }
+}
@@ -1,7 +1,8 @@
 package com.team.leaf.shopping.order.service;
 
-import com.team.leaf.shopping.order.entity.OrderDetail;
+import com.team.leaf.shopping.order.dto.OrderHistoryResponse;
 import com.team.leaf.shopping.order.dto.OrderRes;
+import com.team.leaf.shopping.order.entity.OrderDetail;
 import com.team.leaf.shopping.order.repository.OrderRepository;
 import com.team.leaf.user.account.entity.AccountDetail;
 import com.team.leaf.user.account.repository.AccountRepository;
@@ -9,50 +10,29 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final AccountRepository accountRepository;
     private final OrderRepository orderRepository;
 
-    public Map<String, List<OrderRes>> getOrders(AccountDetail account) {
-        AccountDetail accountDetail = accountRepository.findById(account.getUserId())
-                .orElseThrow(() -> new RuntimeException("사용자를 찾을 수 없습니다."));
-
-        List<OrderDetail> orderDetails = orderRepository.findByAccountDetailUserId(accountDetail.getUserId());
+    /*
+     * 주문 전체를 읽어 상품 / 배송지를 하나씩 지연 로딩하지 않고, 한 페이지만 상품 / 배송지와 함께 한 번에 읽는다.
+     * status 가 있으면 그 상태의 주문만 보고, cursor ( 이전 페이지의 nextCursor ) 다음부터 읽는다.
+     * 상태별 주문 수는 group by 한 번으로 센다.
+     */
+    public OrderHistoryResponse getOrders(AccountDetail account, String status, Long cursor, int size) {
+        int pageSize = Math.max(1, Math.min(MAX_PAGE_SIZE, size));
 
-        Map<String, List<OrderRes>> orderMap = new HashMap<>();
-        for (OrderDetail orderDetail : orderDetails) {
-            String status = orderDetail.getStatus();
-            List<OrderRes> orderList = orderMap.getOrDefault(status, new ArrayList<>());
-
-            OrderRes response = OrderRes.builder()
-                    .orderId(orderDetail.getOrderId())
-                    .productCount(orderDetail.getProductCount())
-                    .totalPrice(orderDetail.getTotalPrice())
-                    .commission(orderDetail.getCommission())
-                    .status(orderDetail.getStatus())
-                    .productId(orderDetail.getProduct().getProductId())
-                    .productName(orderDetail.getProduct().getTitle())
-                    .productPrice(orderDetail.getProduct().getPrice())
-                    .recipient(orderDetail.getShippingAddress().getRecipient())
-                    .phone(orderDetail.getShippingAddress().getPhone())
-                    .address(orderDetail.getShippingAddress().getAddress())
-                    .detailedAddress(orderDetail.getShippingAddress().getDetailedAddress())
-                    .build();
-
-            orderList.add(response);
-            orderMap.put(status, orderList);
-        }
+        List<OrderRes> orders = orderRepository.findOrdersByUserId(account.getUserId(), status, cursor, pageSize);
+        Long nextCursor = orders.size() < pageSize ? null : orders.get(orders.size() - 1).getOrderId();
 
-        return orderMap;
+        return new OrderHistoryResponse(orderRepository.countOrdersByStatus(account.getUserId()), orders, nextCursor);
     }
 
     @Transactional
@@ -1,6 +1,7 @@
 package com.team.leaf.shopping.product.category.entity;
 
 import com.team.leaf.shopping.product.product.entity.Product;
+import com.team.leaf.shopping.product.product.util.CategoryProductListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -8,6 +9,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners(CategoryProductListener.class)
 @Getter
 @Builder
 @NoArgsConstructor
@@ -5,27 +5,48 @@ import com.team.leaf.shopping.product.product.dto.ProductRequest;
 import com.team.leaf.shopping.product.product.service.ProductService;
 import com.team.leaf.user.account.exception.ApiResponse;
 import com.team.leaf.user.account.exception.ApiResponseStatus;
+import com.team.leaf.user.account.jwt.JwtTokenUtil;
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
 @RestController
 @RequiredArgsConstructor
 public class ProductController {
 
     private final ProductService productService;
+    private final JwtTokenUtil jwtTokenUtil;
 
     @GetMapping("/product")
-    @Operation(summary = "상품 데이터 목록 가져오기")
+    @Operation(summary = "상품 데이터 목록 가져오기 ( cursor 가 있으면 커서 기반 페이지네이션 )")
     public ApiResponse getAllProduct(Pageable pageable, @RequestBody ProductRequest request) {
+        if(request.getCursor() != null) {
+            return new ApiResponse(productService.getAllProductByCursor(pageable, request));
+        }
 
         return new ApiResponse(productService.getAllProduct(pageable, request));
     }
 
+    @GetMapping("/product/facets")
+    @Operation(summary = "상품 목록의 카테고리 / 가격 구간 / 할인율 구간별 상품 수")
+    public ApiResponse getProductFacets(@RequestBody ProductRequest request) {
+        return new ApiResponse(productService.getProductFacets(request));
+    }
+
     @GetMapping("/product/seller/{userId}")
-    @Operation(summary = "판매자의 상품 데이터 목록 가져오기")
+    @Operation(summary = "판매자의 상품 데이터 목록 가져오기 ( cursor 가 있으면 커서 기반 페이지네이션 )")
     public ApiResponse findSellerProductByUserId(Pageable pageable, @RequestBody ProductRequest request, @PathVariable long userId) {
+        if(request.getCursor() != null) {
+            return new ApiResponse(productService.findSellerProductByUserIdAndCursor(pageable, request, userId));
+        }
 
         return new ApiResponse(productService.findSellerProductByUserId(pageable, request, userId));
     }
@@ -40,17 +61,68 @@ public class ProductController {
 
     @GetMapping("/product/{productId}")
     @Operation(summary= "특정 상품 상세 데이터 가져오기")
-    public ApiResponse findProductByProductId(@PathVariable long productId) {
-        ProductDetailResponse result = productService.findProductByProductId(productId);
+    public ApiResponse findProductByProductId(@PathVariable long productId, HttpServletRequest request) {
+        ProductDetailResponse result = productService.findProductByProductId(productId, viewerOf(request));
 
         return new ApiResponse(result);
     }
 
+    /*
+     * 로그인 토큰이 있으면 토큰의 이메일로, 없거나 검증되지 않으면 IP 와 User-Agent 로 사용자를 구분한다.
+     * 중복 조회 확인용으로 메모리에 남는 값이므로 SHA-256 으로 줄여 둔다. 짧은 해시는 다른 사용자끼리 겹쳐 조회수가 빠진다
+     */
+    private String viewerOf(HttpServletRequest request) {
+        String token = request.getHeader("Authorization");
+
+        if(token == null && request.getCookies() != null) {
+            for(Cookie cookie : request.getCookies()) {
+                if(cookie.getName().equals("accessToken")) {
+                    token = cookie.getValue();
+                }
+            }
+        }
+
+        String viewer = null;
+
+        if(token != null) {
+            try {
+                viewer = "user:" + jwtTokenUtil.getEmailFromToken(token);
+            } catch (RuntimeException e) {
+                // 만료되었거나 잘못된 토큰은 비로그인 사용자와 같이 센다
+            }
+        }
+
+        if(viewer == null) {
+            viewer = "guest:" + request.getRemoteAddr() + "|" + request.getHeader("User-Agent");
+        }
+
+        return digest(viewer);
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @GetMapping("/product/search/{search}")
-    @Operation(summary = "검색어를 통해 상품 데이터 가져오기")
+    @Operation(summary = "검색어를 통해 상품 데이터 가져오기 ( cursor 가 있으면 커서 기반 페이지네이션 )")
     public ApiResponse getAllProductBySearch(Pageable pageable, @RequestBody ProductRequest request, @PathVariable String search) {
+        if(request.getCursor() != null) {
+            return new ApiResponse(productService.getAllProductBySearchAndCursor(pageable, request, search));
+        }
 
         return new ApiResponse(productService.getAllProductBySearch(pageable, request, search));
     }
 
+    @GetMapping("/product/search/{search}/facets")
+    @Operation(summary = "검색 결과의 카테고리 / 가격 구간 / 할인율 구간별 상품 수")
+    public ApiResponse getProductFacetsBySearch(@RequestBody ProductRequest request, @PathVariable String search) {
+        return new ApiResponse(productService.getProductFacetsBySearch(request, search));
+    }
+
 }
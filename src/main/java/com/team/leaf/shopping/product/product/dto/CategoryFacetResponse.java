@@ -0,0 +1,14 @@
+package com.team.leaf.shopping.product.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CategoryFacetResponse {
+
+    private long categoryId;
+
+    private int count;
+
+}
@@ -2,8 +2,10 @@ package com.team.leaf.shopping.product.product.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 
 @Getter
+@NoArgsConstructor
 @AllArgsConstructor
 public class OptionResponse {
 
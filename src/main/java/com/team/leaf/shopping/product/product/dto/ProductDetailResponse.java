@@ -2,6 +2,7 @@ package com.team.leaf.shopping.product.product.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 import java.time.LocalDate;
@@ -10,6 +11,7 @@ import java.util.List;
 
 @ToString
 @Getter
+@NoArgsConstructor
 public class ProductDetailResponse {
 
     private long productId;
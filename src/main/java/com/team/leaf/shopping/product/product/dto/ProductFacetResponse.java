@@ -0,0 +1,20 @@
+package com.team.leaf.shopping.product.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ProductFacetResponse {
+
+    // 상품 수가 많은 카테고리 순
+    private List<CategoryFacetResponse> categories;
+
+    // 설정한 구간 순서 ( product.filter.price-bands, discount-bands )
+    private List<RangeFacetResponse> priceRanges;
+
+    private List<RangeFacetResponse> discountRanges;
+
+}
@@ -0,0 +1,16 @@
+package com.team.leaf.shopping.product.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ProductFilterKey {
+
+    private long productId;
+
+    private int price;
+
+    private double discountRate;
+
+}
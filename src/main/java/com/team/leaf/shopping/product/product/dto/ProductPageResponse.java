@@ -0,0 +1,17 @@
+package com.team.leaf.shopping.product.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ProductPageResponse {
+
+    private List<ProductResponse> products;
+
+    // 다음 페이지 요청에 넘길 커서. 마지막 페이지이면 null
+    private String nextCursor;
+
+}
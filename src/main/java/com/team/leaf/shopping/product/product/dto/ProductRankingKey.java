@@ -0,0 +1,22 @@
+package com.team.leaf.shopping.product.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ProductRankingKey {
+
+    private long productId;
+
+    private int price;
+
+    private long saleRate;
+
+    private long views;
+
+    private long reviewScoreSum;
+
+    private long reviewCount;
+
+}
@@ -3,9 +3,27 @@ package com.team.leaf.shopping.product.product.dto;
 import com.team.leaf.shopping.product.product.util.SortType;
 import lombok.Getter;
 
+import java.util.List;
+
 @Getter
 public class ProductRequest {
 
     private SortType sortType;
 
+    // 있으면 커서 기반 페이지네이션 ( 첫 페이지는 빈 문자열, 이후는 응답의 nextCursor )
+    private String cursor;
+
+    // 목록 필터. 카테고리는 하나라도 속하면 포함하고, 나머지 조건과는 모두 만족해야 한다
+    private List<Long> categoryIds;
+
+    private Integer minPrice;
+
+    private Integer maxPrice;
+
+    private Double minDiscountRate;
+
+    public boolean hasFilter() {
+        return (categoryIds != null && !categoryIds.isEmpty()) || minPrice != null || maxPrice != null || minDiscountRate != null;
+    }
+
 }
@@ -0,0 +1,19 @@
+package com.team.leaf.shopping.product.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ProductSignal {
+
+    private long productId;
+
+    private long saleRate;
+
+    private long views;
+
+    // 리뷰가 없으면 0
+    private double averageRating;
+
+}
@@ -0,0 +1,17 @@
+package com.team.leaf.shopping.product.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class RangeFacetResponse {
+
+    // min 이상 max 미만. 첫 구간의 min 과 마지막 구간의 max 는 null
+    private Double min;
+
+    private Double max;
+
+    private int count;
+
+}
@@ -2,6 +2,8 @@ package com.team.leaf.shopping.product.product.entity;
 
 import com.team.leaf.shopping.coupon.entity.Coupon;
 import com.team.leaf.shopping.product.category.entity.CategoryProduct;
+import com.team.leaf.shopping.product.product.util.ProductDetailCacheListener;
+import com.team.leaf.shopping.product.product.util.ProductIndexListener;
 import com.team.leaf.shopping.product.review.entity.Review;
 import com.team.leaf.user.account.entity.AccountDetail;
 import jakarta.persistence.*;
@@ -16,6 +18,13 @@ import java.util.LinkedList;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_product_sale_rate", columnList = "saleRate, productId"),
+        @Index(name = "idx_product_views", columnList = "views, productId"),
+        @Index(name = "idx_product_price", columnList = "price, productId"),
+        @Index(name = "idx_product_average_rating", columnList = "averageRating, productId")
+})
+@EntityListeners({ProductIndexListener.class, ProductDetailCacheListener.class})
 @Getter
 @Builder
 @NoArgsConstructor
@@ -42,6 +51,13 @@ public class Product {
 
     private double discountRate;
 
+    // 리뷰 점수 합계와 개수, 평균. 리뷰가 바뀔 때 함께 갱신하고 목록 정렬은 averageRating 을 그대로 읽는다
+    private long reviewScoreSum;
+
+    private long reviewCount;
+
+    private double averageRating;
+
     private LocalDate deliveryStart;
 
     private LocalDate productionTime;
@@ -75,7 +91,11 @@ public class Product {
         coupon.setProduct(this);
     }
 
+    // 상품과 함께 저장되는 리뷰. 이미 저장된 상품의 리뷰는 ReviewService 가 리뷰 집계를 갱신한다
     public void addReview(Review review) {
         this.reviews.add(review);
+        this.reviewScoreSum += review.getScore();
+        this.reviewCount++;
+        this.averageRating = (double) reviewScoreSum / reviewCount;
     }
 }
@@ -1,5 +1,6 @@
 package com.team.leaf.shopping.product.product.entity;
 
+import com.team.leaf.shopping.product.product.util.ProductDetailCacheListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -7,6 +8,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners(ProductDetailCacheListener.class)
 @Getter
 @Builder
 @NoArgsConstructor
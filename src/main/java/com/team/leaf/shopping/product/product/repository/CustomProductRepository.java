@@ -1,23 +1,58 @@
 package com.team.leaf.shopping.product.product.repository;
 
+import com.team.leaf.shopping.product.product.dto.CategoryProductKey;
 import com.team.leaf.shopping.product.product.dto.ProductDetailResponse;
+import com.team.leaf.shopping.product.product.dto.ProductFilterKey;
 import com.team.leaf.shopping.product.product.dto.ProductRequest;
+import com.team.leaf.shopping.product.product.dto.ProductRankingKey;
 import com.team.leaf.shopping.product.product.dto.ProductResponse;
+import com.team.leaf.shopping.product.product.dto.ProductSearchDocument;
+import com.team.leaf.shopping.product.product.dto.ProductSignal;
 import com.team.leaf.shopping.product.product.entity.Product;
+import com.team.leaf.shopping.product.product.util.ProductCursor;
 import com.team.leaf.user.account.entity.AccountDetail;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface CustomProductRepository {
 
     List<ProductResponse> getAllProduct(Pageable pageable, ProductRequest request);
 
-    List<ProductResponse> getAllProductBySearch(Pageable pageable, ProductRequest request, String search);
+    List<ProductResponse> getAllProductByProductIds(Pageable pageable, ProductRequest request, List<Long> productIds);
+
+    List<ProductResponse> getAllProductByCursor(ProductRequest request, ProductCursor cursor, int size);
+
+    List<ProductResponse> getAllProductByProductIdsAndCursor(ProductRequest request, ProductCursor cursor, int size, List<Long> productIds);
+
+    List<ProductResponse> findSellerProductByUserIdAndCursor(ProductRequest request, ProductCursor cursor, int size, long userId);
+
+    List<ProductSearchDocument> findAllSearchDocuments();
+
+    List<ProductSignal> findAllProductSignals();
+
+    List<ProductRankingKey> findAllProductRankingKeys();
+
+    List<ProductFilterKey> findAllProductFilterKeys();
+
+    List<CategoryProductKey> findAllCategoryProductKeys();
+
+    void increaseViews(Map<Long, Long> views);
+
+    long addReviewScore(long productId, long scoreDelta, long countDelta);
+
+    List<Long> findReviewStatisticsDriftProductIds();
+
+    long recalculateReviewStatistics(long productId);
+
+    Optional<ProductRankingKey> findProductRankingKey(long productId);
 
     Optional<ProductDetailResponse> findProductByProductId(long productId);
 
+    List<Long> findProductIdsBySellerId(long userId);
+
     Optional<Product> findProductByProductIdAndSeller(long productId, AccountDetail accountDetail);
 
     List<ProductResponse> findSellerProductByUserId(Pageable pageable, ProductRequest request, long userId);
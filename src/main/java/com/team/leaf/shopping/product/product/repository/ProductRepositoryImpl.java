@@ -1,19 +1,36 @@
 package com.team.leaf.shopping.product.product.repository;
 
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.team.leaf.shopping.product.product.dto.CategoryProductKey;
 import com.team.leaf.shopping.product.product.dto.OptionResponse;
 import com.team.leaf.shopping.product.product.dto.ProductDetailResponse;
+import com.team.leaf.shopping.product.product.dto.ProductFilterKey;
 import com.team.leaf.shopping.product.product.dto.ProductRequest;
+import com.team.leaf.shopping.product.product.dto.ProductRankingKey;
 import com.team.leaf.shopping.product.product.dto.ProductResponse;
+import com.team.leaf.shopping.product.product.dto.ProductSearchDocument;
+import com.team.leaf.shopping.product.product.dto.ProductSignal;
 import com.team.leaf.shopping.product.product.entity.Product;
+import com.team.leaf.shopping.product.product.util.ProductCursor;
+import com.team.leaf.shopping.product.product.util.SortType;
 import com.team.leaf.user.account.entity.AccountDetail;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static com.team.leaf.shopping.product.category.entity.QCategoryProduct.categoryProduct;
 import static com.team.leaf.shopping.product.product.entity.QProduct.product;
 import static com.team.leaf.shopping.product.product.entity.QProductOption.productOption;
 import static com.team.leaf.shopping.product.review.entity.QReview.review;
@@ -24,6 +41,7 @@ import static com.team.leaf.user.account.entity.QAccountPrivacy.accountPrivacy;
 public class ProductRepositoryImpl implements CustomProductRepository {
 
     private final JPAQueryFactory jpaQueryFactory;
+    private final JdbcTemplate jdbcTemplate;
 
     @Override
     public List<ProductResponse> getAllProduct(Pageable pageable, ProductRequest request) {
@@ -37,19 +55,19 @@ public class ProductRepositoryImpl implements CustomProductRepository {
                         product.saleRate,
                         product.views,
                         product.discountRate,
-                        review.score.avg()
+                        product.averageRating
                 ))
                 .from(product)
-                .leftJoin(product.reviews, review).on(review.product.eq(product))
-                .groupBy(product.productId)
+                .where(filterOf(request))
                 .orderBy(request.getSortType().getSort())
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
     }
 
+    // 검색 색인에서 찾은 상품 중 목록 필터에 맞는 상품만 조회한다
     @Override
-    public List<ProductResponse> getAllProductBySearch(Pageable pageable, ProductRequest request, String search) {
+    public List<ProductResponse> getAllProductByProductIds(Pageable pageable, ProductRequest request, List<Long> productIds) {
         return jpaQueryFactory.select(Projections.constructor(ProductResponse.class,
                         product.productId,
                         product.title,
@@ -60,18 +78,274 @@ public class ProductRepositoryImpl implements CustomProductRepository {
                         product.saleRate,
                         product.views,
                         product.discountRate,
-                        review.score.avg()
+                        product.averageRating
                 ))
                 .from(product)
-                .leftJoin(product.reviews, review).on(review.product.eq(product))
-                .groupBy(product.productId)
-                .orderBy(request.getSortType().getSort())
-                .where(product.title.contains(search))
+                .orderBy(request.getSortType().getSort(), product.productId.desc())
+                .where(product.productId.in(productIds), filterOf(request))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
     }
 
+    @Override
+    public List<ProductResponse> getAllProductByCursor(ProductRequest request, ProductCursor cursor, int size) {
+        JPAQuery<ProductResponse> query = selectProductResponse()
+                .where(filterOf(request));
+
+        return fetchPage(query, request.getSortType(), cursor, size);
+    }
+
+    // 필터 색인을 아직 만들지 못했을 때 쓰는 목록 필터 조건. 검색 결과 조회에서는 색인으로 거른 뒤 DB 값으로 한 번 더 확인한다
+    private static BooleanExpression filterOf(ProductRequest request) {
+        BooleanExpression result = null;
+
+        if(request.getCategoryIds() != null && !request.getCategoryIds().isEmpty()) {
+            result = product.categories.any().category.categoryId.in(request.getCategoryIds());
+        }
+        if(request.getMinPrice() != null) {
+            result = product.price.goe(request.getMinPrice()).and(result);
+        }
+        if(request.getMaxPrice() != null) {
+            result = product.price.loe(request.getMaxPrice()).and(result);
+        }
+        if(request.getMinDiscountRate() != null) {
+            result = product.discountRate.goe(request.getMinDiscountRate()).and(result);
+        }
+
+        return result;
+    }
+
+    @Override
+    public List<ProductResponse> getAllProductByProductIdsAndCursor(ProductRequest request, ProductCursor cursor, int size, List<Long> productIds) {
+        JPAQuery<ProductResponse> query = selectProductResponse()
+                .where(product.productId.in(productIds), filterOf(request));
+
+        return fetchPage(query, request.getSortType(), cursor, size);
+    }
+
+    @Override
+    public List<ProductResponse> findSellerProductByUserIdAndCursor(ProductRequest request, ProductCursor cursor, int size, long userId) {
+        JPAQuery<ProductResponse> query = selectProductResponse()
+                .innerJoin(product.seller, accountDetail).on(accountDetail.userId.eq(userId));
+
+        return fetchPage(query, request.getSortType(), cursor, size);
+    }
+
+    private JPAQuery<ProductResponse> selectProductResponse() {
+        return jpaQueryFactory.select(Projections.constructor(ProductResponse.class,
+                        product.productId,
+                        product.title,
+                        product.description,
+                        product.price,
+                        product.image,
+                        product.registrationDate,
+                        product.saleRate,
+                        product.views,
+                        product.discountRate,
+                        product.averageRating
+                ))
+                .from(product);
+    }
+
+    // 커서 다음 행부터 size 개. 정렬 값이 같으면 상품 ID 내림차순으로 이어간다
+    private List<ProductResponse> fetchPage(JPAQuery<ProductResponse> query, SortType sortType, ProductCursor cursor, int size) {
+        return query.where(afterCursor(sortType, cursor))
+                .orderBy(sortType.getSort(), product.productId.desc())
+                .limit(size)
+                .fetch();
+    }
+
+    private BooleanExpression afterCursor(SortType sortType, ProductCursor cursor) {
+        if(cursor == null) {
+            return null;
+        }
+
+        long productId = cursor.getProductId();
+
+        if(sortType == SortType.RATING) {
+            return seekDescending(product.averageRating, cursor.doubleKey(), productId);
+        }
+        if(sortType == SortType.SALE_RATE) {
+            return seekDescending(product.saleRate, cursor.longKey(), productId);
+        }
+        if(sortType == SortType.VIEWS) {
+            return seekDescending(product.views, cursor.longKey(), productId);
+        }
+        if(sortType == SortType.HIGH_PRICE) {
+            return seekDescending(product.price, (int) cursor.longKey(), productId);
+        }
+        if(sortType == SortType.LOW_PRICE) {
+            return product.price.gt((int) cursor.longKey())
+                    .or(product.price.eq((int) cursor.longKey()).and(product.productId.lt(productId)));
+        }
+
+        return product.productId.lt(productId);
+    }
+
+    private static <T extends Number & Comparable<?>> BooleanExpression seekDescending(NumberExpression<T> key, T value, long productId) {
+        return key.lt(value).or(key.eq(value).and(product.productId.lt(productId)));
+    }
+
+    @Override
+    public List<ProductSearchDocument> findAllSearchDocuments() {
+        return jpaQueryFactory.select(Projections.constructor(ProductSearchDocument.class,
+                        product.productId,
+                        product.title,
+                        product.description
+                ))
+                .from(product)
+                .fetch();
+    }
+
+    @Override
+    public List<ProductSignal> findAllProductSignals() {
+        return jpaQueryFactory.select(Projections.constructor(ProductSignal.class,
+                        product.productId,
+                        product.saleRate,
+                        product.views,
+                        product.averageRating
+                ))
+                .from(product)
+                .fetch();
+    }
+
+    @Override
+    public List<ProductRankingKey> findAllProductRankingKeys() {
+        return jpaQueryFactory.select(Projections.constructor(ProductRankingKey.class,
+                        product.productId,
+                        product.price,
+                        product.saleRate,
+                        product.views,
+                        product.reviewScoreSum,
+                        product.reviewCount
+                ))
+                .from(product)
+                .fetch();
+    }
+
+    @Override
+    public Optional<ProductRankingKey> findProductRankingKey(long productId) {
+        return Optional.ofNullable(jpaQueryFactory.select(Projections.constructor(ProductRankingKey.class,
+                        product.productId,
+                        product.price,
+                        product.saleRate,
+                        product.views,
+                        product.reviewScoreSum,
+                        product.reviewCount
+                ))
+                .from(product)
+                .where(product.productId.eq(productId))
+                .fetchOne());
+    }
+
+    @Override
+    public List<ProductFilterKey> findAllProductFilterKeys() {
+        return jpaQueryFactory.select(Projections.constructor(ProductFilterKey.class,
+                        product.productId,
+                        product.price,
+                        product.discountRate
+                ))
+                .from(product)
+                .fetch();
+    }
+
+    @Override
+    public List<CategoryProductKey> findAllCategoryProductKeys() {
+        return jpaQueryFactory.select(Projections.constructor(CategoryProductKey.class,
+                        categoryProduct.category.categoryId,
+                        categoryProduct.product.productId
+                ))
+                .from(categoryProduct)
+                .fetch();
+    }
+
+    // 모아 둔 조회수를 상품마다 한 문장씩 JDBC 배치로 더한다. 삭제된 상품은 0 건으로 끝난다
+    @Override
+    public void increaseViews(Map<Long, Long> views) {
+        List<Object[]> parameters = new ArrayList<>(views.size());
+
+        for(Map.Entry<Long, Long> entry : views.entrySet()) {
+            parameters.add(new Object[]{entry.getValue(), entry.getKey()});
+        }
+
+        jdbcTemplate.batchUpdate("update product set views = views + ? where product_id = ?", parameters);
+    }
+
+    // 리뷰 점수 합계와 개수를 더하고 평균을 다시 계산한다. 한 문장으로 갱신하므로 동시에 리뷰가 바뀌어도 유실되지 않는다
+    @Override
+    public long addReviewScore(long productId, long scoreDelta, long countDelta) {
+        NumberExpression<Long> scoreSum = product.reviewScoreSum.add(scoreDelta);
+        NumberExpression<Long> count = product.reviewCount.add(countDelta);
+
+        // 평균을 먼저 둔다. MySQL 은 SET 을 왼쪽부터 적용하므로 뒤에 두면 이미 더한 값에 다시 더하게 된다
+        return jpaQueryFactory.update(product)
+                .set(product.averageRating, averageOf(scoreSum, count))
+                .set(product.reviewScoreSum, scoreSum)
+                .set(product.reviewCount, count)
+                .where(product.productId.eq(productId))
+                .execute();
+    }
+
+    // 저장된 리뷰 집계가 실제 리뷰와 다른 상품
+    @Override
+    public List<Long> findReviewStatisticsDriftProductIds() {
+        NumberExpression<Long> scoreSum = review.score.sum().longValue().coalesce(0L);
+        NumberExpression<Long> count = review.reviewId.count();
+
+        List<Tuple> result = jpaQueryFactory.select(
+                        product.productId,
+                        product.reviewScoreSum,
+                        product.reviewCount,
+                        product.averageRating,
+                        scoreSum,
+                        count
+                )
+                .from(product)
+                .leftJoin(product.reviews, review).on(review.product.eq(product))
+                .groupBy(product.productId)
+                .fetch();
+
+        List<Long> productIds = new ArrayList<>();
+
+        for(Tuple tuple : result) {
+            long actualScoreSum = tuple.get(scoreSum);
+            long actualCount = tuple.get(count);
+            double actualAverage = actualCount == 0 ? 0 : (double) actualScoreSum / actualCount;
+
+            if(tuple.get(product.reviewScoreSum) != actualScoreSum
+                    || tuple.get(product.reviewCount) != actualCount
+                    || Math.abs(tuple.get(product.averageRating) - actualAverage) > 1e-9) {
+                productIds.add(tuple.get(product.productId));
+            }
+        }
+
+        return productIds;
+    }
+
+    // 리뷰 테이블에서 다시 집계해 덮어쓴다
+    @Override
+    public long recalculateReviewStatistics(long productId) {
+        return jpaQueryFactory.update(product)
+                .set(product.averageRating, JPAExpressions.select(review.score.avg().coalesce(0.0))
+                        .from(review)
+                        .where(review.product.productId.eq(productId)))
+                .set(product.reviewScoreSum, JPAExpressions.select(review.score.sum().longValue().coalesce(0L))
+                        .from(review)
+                        .where(review.product.productId.eq(productId)))
+                .set(product.reviewCount, JPAExpressions.select(review.reviewId.count())
+                        .from(review)
+                        .where(review.product.productId.eq(productId)))
+                .where(product.productId.eq(productId))
+                .execute();
+    }
+
+    private static NumberExpression<Double> averageOf(NumberExpression<Long> scoreSum, NumberExpression<Long> count) {
+        return new CaseBuilder()
+                .when(count.gt(0L)).then(scoreSum.doubleValue().divide(count))
+                .otherwise(0.0);
+    }
+
     @Override
     public Optional<ProductDetailResponse> findProductByProductId(long productId) {
         ProductDetailResponse result = jpaQueryFactory.select(Projections.constructor(ProductDetailResponse.class,
@@ -97,6 +371,10 @@ public class ProductRepositoryImpl implements CustomProductRepository {
                 .where(product.productId.eq(productId))
                 .fetchOne();
 
+        if(result == null) {
+            return Optional.empty();
+        }
+
         List<OptionResponse> optionList = jpaQueryFactory.select(
                         Projections.constructor(
                                 OptionResponse.class,
@@ -110,7 +388,15 @@ public class ProductRepositoryImpl implements CustomProductRepository {
 
         result.setOption(optionList);
 
-        return Optional.ofNullable(result);
+        return Optional.of(result);
+    }
+
+    @Override
+    public List<Long> findProductIdsBySellerId(long userId) {
+        return jpaQueryFactory.select(product.productId)
+                .from(product)
+                .where(product.seller.userId.eq(userId))
+                .fetch();
     }
 
     @Override
@@ -136,12 +422,10 @@ public class ProductRepositoryImpl implements CustomProductRepository {
                         product.saleRate,
                         product.views,
                         product.discountRate,
-                        review.score.avg()
+                        product.averageRating
                 ))
                 .from(product)
                 .innerJoin(product.seller, accountDetail).on(accountDetail.userId.eq(userId))
-                .leftJoin(product.reviews, review).on(review.product.eq(product))
-                .groupBy(product.productId)
                 .orderBy(request.getSortType().getSort())
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
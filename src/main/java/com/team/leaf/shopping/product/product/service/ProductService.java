@@ -1,10 +1,20 @@
 package com.team.leaf.shopping.product.product.service;
 
 import com.team.leaf.shopping.product.product.dto.ProductDetailResponse;
+import com.team.leaf.shopping.product.product.dto.ProductFacetResponse;
+import com.team.leaf.shopping.product.product.dto.ProductPageResponse;
 import com.team.leaf.shopping.product.product.dto.ProductRequest;
 import com.team.leaf.shopping.product.product.dto.ProductResponse;
 import com.team.leaf.shopping.product.product.entity.Product;
 import com.team.leaf.shopping.product.product.repository.ProductRepository;
+import com.team.leaf.shopping.product.product.util.ProductCursor;
+import com.team.leaf.shopping.product.product.util.ProductBitmap;
+import com.team.leaf.shopping.product.product.util.ProductDetailCache;
+import com.team.leaf.shopping.product.product.util.ProductFilterIndex;
+import com.team.leaf.shopping.product.product.util.ProductRanking;
+import com.team.leaf.shopping.product.product.util.ProductSearchIndex;
+import com.team.leaf.shopping.product.product.util.ProductViewCounter;
+import com.team.leaf.shopping.product.product.util.SortType;
 import com.team.leaf.shopping.wish.entity.Wish;
 import com.team.leaf.shopping.wish.repository.WishRepository;
 import com.team.leaf.user.account.entity.AccountDetail;
@@ -12,10 +22,17 @@ import com.team.leaf.user.account.exception.ApiResponseStatus;
 import com.team.leaf.user.account.jwt.JwtTokenUtil;
 import com.team.leaf.user.account.repository.AccountRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -26,10 +43,53 @@ public class ProductService {
     private final WishRepository wishRepository;
     private final JwtTokenUtil jwtTokenUtil;
     private final AccountRepository accountRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductViewCounter productViewCounter;
+    private final ProductDetailCache productDetailCache;
+    private final ProductRanking productRanking;
+    private final ProductFilterIndex productFilterIndex;
 
+    // 정렬 순위 없이 검색 결과를 DB 에서 정렬할 때 한 쿼리의 IN 목록에 넣는 최대 상품 수
+    @Value("${product.search.max-sort-candidates:1000}")
+    private int maxSortCandidates = 1000;
+
+    // 미리 만든 정렬 순위에서 한 페이지의 상품 ID 를 잘라 그 상품만 조회한다. 필터는 필터 색인의 상품 집합과 순위를 맞춰 본다
     public List<ProductResponse> getAllProduct(Pageable pageable, ProductRequest request) {
+        if(!isRankingAvailable(request)) {
+            return productRepository.getAllProduct(pageable, request);
+        }
+
+        ProductBitmap filter = productFilterIndex.filter(request);
+        long[] productIds = productRanking.page(request.getSortType(), filter, (int) pageable.getOffset(), pageable.getPageSize()).getProductIds();
+
+        return findProductsInOrder(request, productIds, 0, productIds.length);
+    }
+
+    // 목록의 카테고리 / 가격 / 할인율별 상품 수. 필터 색인의 비트맵으로 세므로 패싯마다 쿼리하지 않는다
+    public ProductFacetResponse getProductFacets(ProductRequest request) {
+        return productFilterIndex.facets(request, null);
+    }
+
+    // 검색 결과 전체 ( 페이지와 관계없이 ) 의 패싯
+    public ProductFacetResponse getProductFacetsBySearch(ProductRequest request, String search) {
+        return productFilterIndex.facets(request, ProductBitmap.of(productSearchIndex.search(search)));
+    }
+
+    // 필터가 있으면 필터 색인도 만들어져 있어야 순위로 처리할 수 있다
+    private boolean isRankingAvailable(ProductRequest request) {
+        return productRanking.isInitialized() && (!request.hasFilter() || productFilterIndex.isInitialized());
+    }
+
+    // 필터 색인을 만들기 전에는 검색 결과를 DB 에서 필터 조건으로 거르고 정렬한다 ( 정확도순도 최신 상품 순 )
+    private boolean isSearchFilterAvailable(ProductRequest request) {
+        return !request.hasFilter() || productFilterIndex.isInitialized();
+    }
+
+    // 검색 결과 중 filter 에 든 상품 ID ( 오름차순 ). filter 가 null 이면 검색 결과 전체
+    private long[] searchProductIds(String search, ProductBitmap filter) {
+        long[] productIds = productSearchIndex.search(search);
 
-        return productRepository.getAllProduct(pageable, request);
+        return filter == null ? productIds : filter.and(ProductBitmap.of(productIds)).toArray();
     }
 
     public void addWishList(String token,long productId) {
@@ -43,18 +103,262 @@ public class ProductService {
         wishRepository.save(Wish.createWish(account , product));
     }
 
+    // 검색 색인으로 상품 ID 를 찾고, 찾은 상품 중 한 페이지만 조회한다. 다른 정렬은 정렬 순위에서 검색 결과만 남겨 페이지를 자른다
     public List<ProductResponse> getAllProductBySearch(Pageable pageable, ProductRequest request, String search) {
+        if(!isSearchFilterAvailable(request)) {
+            return findSortedProducts(pageable, request, productSearchIndex.search(search));
+        }
+
+        ProductBitmap filter = productFilterIndex.filter(request);
+
+        if(request.getSortType() == SortType.RELEVANCE) {
+            long[] productIds = productSearchIndex.searchByRelevance(search, filter, (int) pageable.getOffset() + pageable.getPageSize()).getProductIds();
+
+            return findProductsInOrder(request, productIds, (int) Math.min(pageable.getOffset(), productIds.length), productIds.length);
+        }
+
+        long[] productIds = searchProductIds(search, filter);
+
+        // 기본 정렬( 최신 상품 순 ) 은 색인의 ID 순서를 뒤집은 것이므로 한 페이지의 ID 만 넘긴다
+        if(request.getSortType() == SortType.NORMAL) {
+            return findNewestProducts(request, productIds, productIds.length - (int) Math.min(pageable.getOffset(), productIds.length), pageable.getPageSize());
+        }
+
+        if(productIds.length == 0) {
+            return new ArrayList<>();
+        }
+
+        // 정렬 순위에서 검색 결과에 든 상품만 골라 한 페이지의 ID 만 조회한다
+        if(productRanking.isInitialized()) {
+            long[] pageIds = productRanking.page(request.getSortType(), ProductBitmap.of(productIds), (int) pageable.getOffset(), pageable.getPageSize()).getProductIds();
+
+            return findProductsInOrder(request, pageIds, 0, pageIds.length);
+        }
+
+        return findSortedProducts(pageable, request, productIds);
+    }
+
+    // 커서 기반 페이지네이션. 페이지 깊이와 관계없이 커서 다음 행부터 읽는다
+    public ProductPageResponse getAllProductByCursor(Pageable pageable, ProductRequest request) {
+        ProductCursor cursor = ProductCursor.decode(request.getCursor(), request.getSortType());
+
+        if(isRankingAvailable(request)) {
+            ProductBitmap filter = productFilterIndex.filter(request);
+            ProductRanking.Page page = productRanking.pageAfter(request.getSortType(), filter, cursor, pageable.getPageSize());
+            long[] productIds = page.getProductIds();
+            List<ProductResponse> result = findProductsInOrder(request, productIds, 0, productIds.length);
+
+            // 다음 커서는 순위의 정렬 값으로 만든다. DB 값이 그 사이 바뀌어도 순위 안의 위치를 그대로 이어간다
+            String nextCursor = productIds.length < pageable.getPageSize() ? null
+                    : ProductCursor.of(request.getSortType(), page.getKeys()[productIds.length - 1], productIds[productIds.length - 1]).encode();
+
+            return new ProductPageResponse(result, nextCursor);
+        }
+
+        List<ProductResponse> result = productRepository.getAllProductByCursor(request, cursor, pageable.getPageSize());
+
+        return toPage(request.getSortType(), result, pageable.getPageSize());
+    }
+
+    public ProductPageResponse getAllProductBySearchAndCursor(Pageable pageable, ProductRequest request, String search) {
+        ProductCursor cursor = ProductCursor.decode(request.getCursor(), request.getSortType());
+        int size = pageable.getPageSize();
+
+        if(!isSearchFilterAvailable(request)) {
+            List<ProductResponse> result = findSortedProductsAfter(request, cursor, size, productSearchIndex.search(search));
+
+            return toPage(request.getSortType(), result, size);
+        }
+
+        ProductBitmap filter = productFilterIndex.filter(request);
+
+        // 정확도순 커서는 이전 페이지 마지막 상품의 점수와 ID
+        if(request.getSortType() == SortType.RELEVANCE) {
+            ProductSearchIndex.Ranking ranking = cursor == null
+                    ? productSearchIndex.searchByRelevance(search, filter, size)
+                    : productSearchIndex.searchByRelevance(search, filter, size, cursor.doubleKey(), cursor.getProductId());
+            long[] productIds = ranking.getProductIds();
+            List<ProductResponse> result = findProductsInOrder(request, productIds, 0, productIds.length);
+
+            String nextCursor = productIds.length < size ? null
+                    : ProductCursor.of(SortType.RELEVANCE, ranking.getScores()[productIds.length - 1], productIds[productIds.length - 1]).encode();
+
+            return new ProductPageResponse(result, nextCursor);
+        }
+
+        long[] productIds = searchProductIds(search, filter);
+
+        if(request.getSortType() == SortType.NORMAL) {
+            // 커서의 상품 ID 보다 작은 ID 중 가장 큰 것부터
+            int end = productIds.length;
+            if(cursor != null) {
+                int index = Arrays.binarySearch(productIds, cursor.getProductId());
+                end = index >= 0 ? index : -index - 1;
+            }
+
+            return toPage(request.getSortType(), findNewestProducts(request, productIds, end, size), size);
+        }
+
+        if(productIds.length == 0) {
+            return new ProductPageResponse(new ArrayList<>(), null);
+        }
+
+        if(productRanking.isInitialized()) {
+            ProductRanking.Page page = productRanking.pageAfter(request.getSortType(), ProductBitmap.of(productIds), cursor, size);
+            long[] pageIds = page.getProductIds();
+            List<ProductResponse> result = findProductsInOrder(request, pageIds, 0, pageIds.length);
+
+            String nextCursor = pageIds.length < size ? null
+                    : ProductCursor.of(request.getSortType(), page.getKeys()[pageIds.length - 1], pageIds[pageIds.length - 1]).encode();
 
-        return productRepository.getAllProductBySearch(pageable, request, search);
+            return new ProductPageResponse(result, nextCursor);
+        }
+
+        List<ProductResponse> result = findSortedProductsAfter(request, cursor, size, productIds);
+
+        return toPage(request.getSortType(), result, size);
+    }
+
+    // productIds[end - 1] 부터 거꾸로 size 개 ( 최신 상품 순 )
+    private List<ProductResponse> findNewestProducts(ProductRequest request, long[] productIds, int end, int size) {
+        List<Long> pageIds = new ArrayList<>(size);
+
+        for(int i = end - 1; i >= 0 && pageIds.size() < size; i--) {
+            pageIds.add(productIds[i]);
+        }
+
+        if(pageIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        return productRepository.getAllProductByProductIds(PageRequest.of(0, size), request, pageIds);
+    }
+
+    // productIds[from, to) 의 상품만 조회하고 productIds 순서로 다시 정렬한다
+    private List<ProductResponse> findProductsInOrder(ProductRequest request, long[] productIds, int from, int to) {
+        if(from >= to) {
+            return new ArrayList<>();
+        }
+
+        List<Long> pageIds = new ArrayList<>(to - from);
+        Map<Long, Integer> ranks = new HashMap<>();
+
+        for(int i = from; i < to; i++) {
+            ranks.put(productIds[i], pageIds.size());
+            pageIds.add(productIds[i]);
+        }
+
+        List<ProductResponse> result = new ArrayList<>(productRepository.getAllProductByProductIds(PageRequest.of(0, pageIds.size()), request, pageIds));
+        result.sort(Comparator.comparingInt(response -> ranks.get(response.getProductId())));
+
+        return result;
     }
 
-    public ProductDetailResponse findProductByProductId(long productId) {
-        return productRepository.findProductByProductId(productId)
-                .orElseThrow(() -> new RuntimeException("not Fount Data"));
+    /*
+     * 순위를 만들기 전에는 검색 결과 전체를 DB 에서 정렬한다. IN 목록이 끝없이 길어지지 않게 maxSortCandidates 개씩 나눠
+     * 묶음마다 정렬된 앞 ( offset + size ) 개를 읽고, 읽은 상품을 같은 순서로 합쳐 페이지를 자른다.
+     * 묶음 수만큼 쿼리하고 묶음마다 offset 까지 읽으므로 검색 결과가 많고 페이지가 깊을수록 느려진다.
+     */
+    private List<ProductResponse> findSortedProducts(Pageable pageable, ProductRequest request, long[] productIds) {
+        if(productIds.length <= maxSortCandidates) {
+            return productRepository.getAllProductByProductIds(pageable, request, idsOf(productIds, 0, productIds.length));
+        }
+
+        int limit = (int) pageable.getOffset() + pageable.getPageSize();
+        List<ProductResponse> candidates = new ArrayList<>();
+
+        for(int from = 0; from < productIds.length; from += maxSortCandidates) {
+            int to = Math.min(productIds.length, from + maxSortCandidates);
+            candidates.addAll(productRepository.getAllProductByProductIds(PageRequest.of(0, limit), request, idsOf(productIds, from, to)));
+        }
+
+        candidates.sort(orderOf(request.getSortType()));
+
+        int from = (int) Math.min(pageable.getOffset(), candidates.size());
+
+        return new ArrayList<>(candidates.subList(from, Math.min(candidates.size(), limit)));
+    }
+
+    // 커서 다음부터 size 개. 묶음마다 커서 다음 size 개를 읽어 합친다
+    private List<ProductResponse> findSortedProductsAfter(ProductRequest request, ProductCursor cursor, int size, long[] productIds) {
+        if(productIds.length <= maxSortCandidates) {
+            return productRepository.getAllProductByProductIdsAndCursor(request, cursor, size, idsOf(productIds, 0, productIds.length));
+        }
+
+        List<ProductResponse> candidates = new ArrayList<>();
+
+        for(int from = 0; from < productIds.length; from += maxSortCandidates) {
+            int to = Math.min(productIds.length, from + maxSortCandidates);
+            candidates.addAll(productRepository.getAllProductByProductIdsAndCursor(request, cursor, size, idsOf(productIds, from, to)));
+        }
+
+        candidates.sort(orderOf(request.getSortType()));
+
+        return new ArrayList<>(candidates.subList(0, Math.min(candidates.size(), size)));
+    }
+
+    private static List<Long> idsOf(long[] productIds, int from, int to) {
+        List<Long> result = new ArrayList<>(to - from);
+
+        for(int i = from; i < to; i++) {
+            result.add(productIds[i]);
+        }
+
+        return result;
+    }
+
+    // DB 정렬 ( SortType 의 정렬 값, 같으면 상품 ID 내림차순 ) 과 같은 순서
+    private static Comparator<ProductResponse> orderOf(SortType sortType) {
+        Comparator<ProductResponse> byKey;
+
+        if(sortType == SortType.RATING) {
+            byKey = Comparator.comparingDouble(ProductResponse::getAverageRating).reversed();
+        } else if(sortType == SortType.SALE_RATE) {
+            byKey = Comparator.comparingLong(ProductResponse::getSaleRate).reversed();
+        } else if(sortType == SortType.VIEWS) {
+            byKey = Comparator.comparingLong(ProductResponse::getViews).reversed();
+        } else if(sortType == SortType.HIGH_PRICE) {
+            byKey = Comparator.comparingInt(ProductResponse::getPrice).reversed();
+        } else if(sortType == SortType.LOW_PRICE) {
+            byKey = Comparator.comparingInt(ProductResponse::getPrice);
+        } else {
+            return Comparator.comparingLong(ProductResponse::getProductId).reversed();
+        }
+
+        return byKey.thenComparing(Comparator.comparingLong(ProductResponse::getProductId).reversed());
+    }
+
+    // 페이지가 가득 찼으면 마지막 상품으로 다음 커서를 만든다
+    private static ProductPageResponse toPage(SortType sortType, List<ProductResponse> products, int size) {
+        String nextCursor = products.size() < size ? null
+                : ProductCursor.of(sortType, products.get(products.size() - 1)).encode();
+
+        return new ProductPageResponse(products, nextCursor);
+    }
+
+    // viewer 는 같은 사용자의 반복 조회를 한 번만 세기 위한 값
+    public ProductDetailResponse findProductByProductId(long productId, String viewer) {
+        ProductDetailResponse result = productDetailCache.get(productId,
+                () -> productRepository.findProductByProductId(productId).orElse(null));
+
+        if(result == null) {
+            throw new RuntimeException("not Fount Data");
+        }
+
+        productViewCounter.increase(productId, viewer);
+
+        return result;
     }
 
     public List<ProductResponse> findSellerProductByUserId(Pageable pageable, ProductRequest request, long userId) {
 
         return productRepository.findSellerProductByUserId(pageable, request, userId);
     }
+
+    public ProductPageResponse findSellerProductByUserIdAndCursor(Pageable pageable, ProductRequest request, long userId) {
+        ProductCursor cursor = ProductCursor.decode(request.getCursor(), request.getSortType());
+        List<ProductResponse> result = productRepository.findSellerProductByUserIdAndCursor(request, cursor, pageable.getPageSize(), userId);
+
+        return toPage(request.getSortType(), result, pageable.getPageSize());
+    }
 }
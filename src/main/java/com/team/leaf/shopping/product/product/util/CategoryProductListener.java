@@ -0,0 +1,42 @@
+package com.team.leaf.shopping.product.product.util;
+
+import com.team.leaf.common.util.AfterCommit;
+import com.team.leaf.shopping.product.category.entity.CategoryProduct;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/*
+ * 상품과 카테고리의 연결이 바뀌면 커밋된 뒤에 필터 색인의 카테고리 비트맵에 반영한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class CategoryProductListener {
+
+    private final ProductFilterIndex productFilterIndex;
+
+    @PostPersist
+    public void add(CategoryProduct categoryProduct) {
+        if(categoryProduct.getProduct() == null || categoryProduct.getCategory() == null) {
+            return;
+        }
+
+        long productId = categoryProduct.getProduct().getProductId();
+        long categoryId = categoryProduct.getCategory().getCategoryId();
+
+        AfterCommit.run(() -> productFilterIndex.addCategory(productId, categoryId));
+    }
+
+    @PostRemove
+    public void remove(CategoryProduct categoryProduct) {
+        if(categoryProduct.getProduct() == null || categoryProduct.getCategory() == null) {
+            return;
+        }
+
+        long productId = categoryProduct.getProduct().getProductId();
+        long categoryId = categoryProduct.getCategory().getCategoryId();
+
+        AfterCommit.run(() -> productFilterIndex.removeCategory(productId, categoryId));
+    }
+}
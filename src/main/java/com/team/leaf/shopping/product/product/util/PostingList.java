@@ -0,0 +1,161 @@
+package com.team.leaf.shopping.product.product.util;
+
+import java.util.Arrays;
+
+/*
+ * 오름차순 상품 ID 와 토큰 등장 횟수를 저장한다.
+ * 상품 ID 는 이전 ID 와의 차이로 바꾸고, 두 값 모두 가변 길이 정수( varint ) 로 저장한다.
+ * 새 상품은 ID 가 가장 크므로 대부분 뒤에 붙이기만 하면 된다.
+ */
+class PostingList {
+
+    private byte[] data = new byte[8];
+    private int length;
+    private int size;
+    private long last;
+
+    // 디코딩한 목록. frequencies[i] 는 productIds[i] 에서 토큰이 등장한 횟수
+    static class Postings {
+        final long[] productIds;
+        final int[] frequencies;
+
+        Postings(long[] productIds, int[] frequencies) {
+            this.productIds = productIds;
+            this.frequencies = frequencies;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(long productId, int frequency) {
+        if(size > 0 && productId <= last) {
+            Postings postings = decode();
+            int index = Arrays.binarySearch(postings.productIds, productId);
+
+            if(index >= 0) {
+                postings.frequencies[index] = frequency;
+                rewrite(postings.productIds, postings.frequencies);
+            } else {
+                rewrite(insert(postings.productIds, -index - 1, productId), insert(postings.frequencies, -index - 1, frequency));
+            }
+
+            return;
+        }
+
+        write(size == 0 ? productId : productId - last);
+        write(frequency);
+        last = productId;
+        size++;
+    }
+
+    void remove(long productId) {
+        Postings postings = decode();
+        int index = Arrays.binarySearch(postings.productIds, productId);
+
+        if(index < 0) {
+            return;
+        }
+
+        rewrite(delete(postings.productIds, index), delete(postings.frequencies, index));
+    }
+
+    long[] toArray() {
+        return decode().productIds;
+    }
+
+    Postings decode() {
+        long[] productIds = new long[size];
+        int[] frequencies = new int[size];
+        int[] position = {0};
+        long previous = 0;
+
+        for(int i = 0; i < size; i++) {
+            previous += read(position);
+            productIds[i] = previous;
+            frequencies[i] = (int) read(position);
+        }
+
+        return new Postings(productIds, frequencies);
+    }
+
+    private long read(int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+
+        do {
+            b = data[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+
+        return value;
+    }
+
+    private void write(long value) {
+        if(length + 10 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 10));
+        }
+
+        while((value & ~0x7FL) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        data[length++] = (byte) value;
+    }
+
+    private void rewrite(long[] productIds, int[] frequencies) {
+        data = new byte[Math.max(8, productIds.length * 3)];
+        length = 0;
+        size = 0;
+        last = 0;
+
+        for(int i = 0; i < productIds.length; i++) {
+            write(size == 0 ? productIds[i] : productIds[i] - last);
+            write(frequencies[i]);
+            last = productIds[i];
+            size++;
+        }
+    }
+
+    private static long[] insert(long[] values, int index, long value) {
+        long[] result = new long[values.length + 1];
+
+        System.arraycopy(values, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(values, index, result, index + 1, values.length - index);
+
+        return result;
+    }
+
+    private static int[] insert(int[] values, int index, int value) {
+        int[] result = new int[values.length + 1];
+
+        System.arraycopy(values, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(values, index, result, index + 1, values.length - index);
+
+        return result;
+    }
+
+    private static long[] delete(long[] values, int index) {
+        long[] result = new long[values.length - 1];
+
+        System.arraycopy(values, 0, result, 0, index);
+        System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+
+        return result;
+    }
+
+    private static int[] delete(int[] values, int index) {
+        int[] result = new int[values.length - 1];
+
+        System.arraycopy(values, 0, result, 0, index);
+        System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+
+        return result;
+    }
+}
@@ -0,0 +1,474 @@
+package com.team.leaf.shopping.product.product.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.LongPredicate;
+
+/*
+ * 상품 ID 집합 ( Roaring 비트맵 방식 )
+ * 상품 ID 를 상위 비트와 하위 16 비트로 나누고, 상위 비트마다 컨테이너 하나에 하위 16 비트를 담는다.
+ * 컨테이너는 4096 개 이하면 정렬된 char 배열, 넘으면 65536 비트 ( long 1024 개 ) 비트맵으로 바꾼다.
+ * 어느 쪽이든 한 값에 16 비트를 넘지 않는다.
+ * 동기화하지 않으므로 바꾸는 쪽이 잠가야 한다. and / or 는 새 비트맵을 만든다.
+ */
+public class ProductBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    // keys[0, size) 는 오름차순, containers[i] 는 keys[i] 의 컨테이너
+    private long[] keys = new long[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    private static class Container {
+        // 배열 컨테이너면 values, 비트맵 컨테이너면 words 를 쓴다
+        char[] values;
+        long[] words;
+        int cardinality;
+
+        static Container ofArray(char[] values, int cardinality) {
+            Container container = new Container();
+            container.values = values;
+            container.cardinality = cardinality;
+            return container;
+        }
+
+        static Container ofWords(long[] words, int cardinality) {
+            Container container = new Container();
+            container.words = words;
+            container.cardinality = cardinality;
+            return container;
+        }
+
+        boolean contains(char low) {
+            if(words != null) {
+                return (words[low >>> 6] & (1L << low)) != 0;
+            }
+
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        boolean add(char low) {
+            if(words != null) {
+                long before = words[low >>> 6];
+                words[low >>> 6] = before | (1L << low);
+
+                if(before == words[low >>> 6]) {
+                    return false;
+                }
+
+                cardinality++;
+                return true;
+            }
+
+            int index = Arrays.binarySearch(values, 0, cardinality, low);
+            if(index >= 0) {
+                return false;
+            }
+
+            if(cardinality == ARRAY_MAX) {
+                toWords();
+                return add(low);
+            }
+
+            index = -index - 1;
+            if(cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, cardinality * 2)));
+            }
+
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = low;
+            cardinality++;
+            return true;
+        }
+
+        boolean remove(char low) {
+            if(words != null) {
+                long before = words[low >>> 6];
+                words[low >>> 6] = before & ~(1L << low);
+
+                if(before == words[low >>> 6]) {
+                    return false;
+                }
+
+                cardinality--;
+                if(cardinality <= ARRAY_MAX / 2) {
+                    toArray();
+                }
+                return true;
+            }
+
+            int index = Arrays.binarySearch(values, 0, cardinality, low);
+            if(index < 0) {
+                return false;
+            }
+
+            System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+            cardinality--;
+            return true;
+        }
+
+        private void toWords() {
+            long[] result = new long[WORDS];
+
+            for(int i = 0; i < cardinality; i++) {
+                result[values[i] >>> 6] |= 1L << values[i];
+            }
+
+            words = result;
+            values = null;
+        }
+
+        private void toArray() {
+            values = toChars();
+            words = null;
+        }
+
+        char[] toChars() {
+            if(words == null) {
+                return Arrays.copyOf(values, cardinality);
+            }
+
+            char[] result = new char[cardinality];
+            int length = 0;
+
+            for(int i = 0; i < WORDS; i++) {
+                long word = words[i];
+
+                while(word != 0) {
+                    result[length++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+
+            return result;
+        }
+
+        Container copy() {
+            return words != null ? ofWords(words.clone(), cardinality) : ofArray(Arrays.copyOf(values, cardinality), cardinality);
+        }
+
+        Container and(Container other) {
+            if(words != null && other.words != null) {
+                long[] result = new long[WORDS];
+                int count = 0;
+
+                for(int i = 0; i < WORDS; i++) {
+                    result[i] = words[i] & other.words[i];
+                    count += Long.bitCount(result[i]);
+                }
+
+                Container container = ofWords(result, count);
+                if(count <= ARRAY_MAX) {
+                    container.toArray();
+                }
+                return container;
+            }
+
+            // 배열 쪽의 값을 하나씩 다른 쪽에서 찾는다
+            Container array = words == null ? this : other;
+            Container probe = array == this ? other : this;
+            char[] result = new char[array.cardinality];
+            int length = 0;
+
+            for(int i = 0; i < array.cardinality; i++) {
+                if(probe.contains(array.values[i])) {
+                    result[length++] = array.values[i];
+                }
+            }
+
+            return ofArray(result, length);
+        }
+
+        // high 를 붙인 상품 ID 가 keep 을 만족하는 값만 남긴 새 컨테이너
+        Container select(long high, LongPredicate keep) {
+            if(words == null) {
+                char[] result = new char[cardinality];
+                int length = 0;
+
+                for(int i = 0; i < cardinality; i++) {
+                    if(keep.test(high | values[i])) {
+                        result[length++] = values[i];
+                    }
+                }
+
+                return ofArray(result, length);
+            }
+
+            long[] result = new long[WORDS];
+            int count = 0;
+
+            for(int i = 0; i < WORDS; i++) {
+                long word = words[i];
+
+                while(word != 0) {
+                    long bit = word & -word;
+
+                    if(keep.test(high | ((long) i << 6) + Long.numberOfTrailingZeros(word))) {
+                        result[i] |= bit;
+                        count++;
+                    }
+                    word ^= bit;
+                }
+            }
+
+            Container container = ofWords(result, count);
+            if(count <= ARRAY_MAX) {
+                container.toArray();
+            }
+            return container;
+        }
+
+        // and 결과를 만들지 않고 개수만 센다
+        int andCardinality(Container other) {
+            if(words != null && other.words != null) {
+                int count = 0;
+
+                for(int i = 0; i < WORDS; i++) {
+                    count += Long.bitCount(words[i] & other.words[i]);
+                }
+
+                return count;
+            }
+
+            Container array = words == null ? this : other;
+            Container probe = array == this ? other : this;
+            int count = 0;
+
+            for(int i = 0; i < array.cardinality; i++) {
+                if(probe.contains(array.values[i])) {
+                    count++;
+                }
+            }
+
+            return count;
+        }
+
+        Container or(Container other) {
+            if(words != null || other.words != null) {
+                Container source = words != null ? this : other;
+                Container rest = source == this ? other : this;
+                Container result = source.copy();
+
+                if(rest.words != null) {
+                    int count = 0;
+                    for(int i = 0; i < WORDS; i++) {
+                        result.words[i] |= rest.words[i];
+                        count += Long.bitCount(result.words[i]);
+                    }
+                    result.cardinality = count;
+                } else {
+                    for(int i = 0; i < rest.cardinality; i++) {
+                        result.add(rest.values[i]);
+                    }
+                }
+
+                return result;
+            }
+
+            // 두 배열을 합친다
+            char[] result = new char[cardinality + other.cardinality];
+            int i = 0;
+            int j = 0;
+            int length = 0;
+
+            while(i < cardinality || j < other.cardinality) {
+                if(j == other.cardinality || (i < cardinality && values[i] < other.values[j])) {
+                    result[length++] = values[i++];
+                } else if(i == cardinality || other.values[j] < values[i]) {
+                    result[length++] = other.values[j++];
+                } else {
+                    result[length++] = values[i++];
+                    j++;
+                }
+            }
+
+            Container container = ofArray(result, length);
+            if(length > ARRAY_MAX) {
+                container.toWords();
+            }
+            return container;
+        }
+    }
+
+    private int indexOf(long key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insert(int index, long key, Container container) {
+        if(size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    // 결과를 만들 때 키 순서대로 붙인다
+    private void append(long key, Container container) {
+        if(container.cardinality > 0) {
+            insert(size, key, container);
+        }
+    }
+
+    public void add(long productId) {
+        long key = productId >>> 16;
+        int index = indexOf(key);
+
+        if(index < 0) {
+            index = -index - 1;
+            insert(index, key, Container.ofArray(new char[4], 0));
+        }
+
+        containers[index].add((char) productId);
+    }
+
+    public void remove(long productId) {
+        int index = indexOf(productId >>> 16);
+
+        if(index < 0 || !containers[index].remove((char) productId)) {
+            return;
+        }
+
+        if(containers[index].cardinality == 0) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+            size--;
+            containers[size] = null;
+        }
+    }
+
+    public boolean contains(long productId) {
+        int index = indexOf(productId >>> 16);
+
+        return index >= 0 && containers[index].contains((char) productId);
+    }
+
+    public int cardinality() {
+        int cardinality = 0;
+
+        for(int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality;
+        }
+
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public ProductBitmap and(ProductBitmap other) {
+        ProductBitmap result = new ProductBitmap();
+        int i = 0;
+        int j = 0;
+
+        while(i < size && j < other.size) {
+            if(keys[i] < other.keys[j]) {
+                i++;
+            } else if(other.keys[j] < keys[i]) {
+                j++;
+            } else {
+                result.append(keys[i], containers[i].and(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+
+        return result;
+    }
+
+    public int andCardinality(ProductBitmap other) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+
+        while(i < size && j < other.size) {
+            if(keys[i] < other.keys[j]) {
+                i++;
+            } else if(other.keys[j] < keys[i]) {
+                j++;
+            } else {
+                count += containers[i].andCardinality(other.containers[j]);
+                i++;
+                j++;
+            }
+        }
+
+        return count;
+    }
+
+    public ProductBitmap or(ProductBitmap other) {
+        ProductBitmap result = new ProductBitmap();
+        int i = 0;
+        int j = 0;
+
+        while(i < size || j < other.size) {
+            if(j == other.size || (i < size && keys[i] < other.keys[j])) {
+                result.append(keys[i], containers[i].copy());
+                i++;
+            } else if(i == size || other.keys[j] < keys[i]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+
+        return result;
+    }
+
+    // keep 을 만족하는 상품만 남긴 새 비트맵
+    public ProductBitmap select(LongPredicate keep) {
+        ProductBitmap result = new ProductBitmap();
+
+        for(int i = 0; i < size; i++) {
+            result.append(keys[i], containers[i].select(keys[i] << 16, keep));
+        }
+
+        return result;
+    }
+
+    public static ProductBitmap of(long[] productIds) {
+        ProductBitmap result = new ProductBitmap();
+
+        for(long productId : productIds) {
+            result.add(productId);
+        }
+
+        return result;
+    }
+
+    public static ProductBitmap orAll(Collection<ProductBitmap> bitmaps) {
+        ProductBitmap result = new ProductBitmap();
+
+        for(ProductBitmap bitmap : bitmaps) {
+            result = result.or(bitmap);
+        }
+
+        return result;
+    }
+
+    // 오름차순 상품 ID
+    public long[] toArray() {
+        long[] result = new long[cardinality()];
+        int length = 0;
+
+        for(int i = 0; i < size; i++) {
+            long high = keys[i] << 16;
+
+            for(char low : containers[i].toChars()) {
+                result[length++] = high | low;
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,95 @@
+package com.team.leaf.shopping.product.product.util;
+
+import com.team.leaf.shopping.product.product.dto.ProductResponse;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+ * 커서 기반 페이지네이션의 커서
+ * 이전 페이지 마지막 상품의 정렬 값과 상품 ID( 정렬 값이 같을 때 순서 ) 를 담고,
+ * 클라이언트에는 "정렬:정렬 값:상품 ID" 를 Base64 로 감싼 문자열로 준다.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ProductCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final SortType sortType;
+
+    private final String sortKey;
+
+    private final long productId;
+
+    public static ProductCursor of(SortType sortType, ProductResponse last) {
+        return new ProductCursor(sortType, sortKeyOf(sortType, last), last.getProductId());
+    }
+
+    // 정확도순 점수나 정렬 순위의 값으로 만든 커서. 평점 외의 정렬 값은 정수로 적는다
+    public static ProductCursor of(SortType sortType, double sortKey, long productId) {
+        if(sortType == SortType.NORMAL) {
+            return new ProductCursor(sortType, "", productId);
+        }
+        if(sortType == SortType.RATING || sortType == SortType.RELEVANCE) {
+            return new ProductCursor(sortType, String.valueOf(sortKey), productId);
+        }
+
+        return new ProductCursor(sortType, String.valueOf((long) sortKey), productId);
+    }
+
+    private static String sortKeyOf(SortType sortType, ProductResponse product) {
+        if(sortType == SortType.RATING) {
+            return String.valueOf(product.getAverageRating());
+        }
+        if(sortType == SortType.SALE_RATE) {
+            return String.valueOf(product.getSaleRate());
+        }
+        if(sortType == SortType.VIEWS) {
+            return String.valueOf(product.getViews());
+        }
+        if(sortType == SortType.HIGH_PRICE || sortType == SortType.LOW_PRICE) {
+            return String.valueOf(product.getPrice());
+        }
+
+        // 일반, 정확도순( 검색 외 ) 은 상품 ID 만으로 정렬한다
+        return "";
+    }
+
+    public long longKey() {
+        return Long.parseLong(sortKey);
+    }
+
+    public double doubleKey() {
+        return Double.parseDouble(sortKey);
+    }
+
+    public String encode() {
+        String value = sortType.name() + SEPARATOR + sortKey + SEPARATOR + productId;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 빈 커서는 첫 페이지( null ). 다른 정렬로 만든 커서나 읽을 수 없는 커서는 예외
+    public static ProductCursor decode(String cursor, SortType sortType) {
+        if(cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] fields = value.split(SEPARATOR, -1);
+
+            if(fields.length != 3 || SortType.valueOf(fields[0]) != sortType) {
+                throw new RuntimeException("Invalid cursor");
+            }
+
+            return new ProductCursor(sortType, fields[1], Long.parseLong(fields[2]));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+}
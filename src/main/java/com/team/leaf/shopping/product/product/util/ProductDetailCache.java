@@ -0,0 +1,292 @@
+package com.team.leaf.shopping.product.product.util;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.team.leaf.shopping.product.product.dto.ProductDetailResponse;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/*
+ * 상품 상세 응답 캐시
+ * 서버 메모리 ( 세그먼트별 LRU ) 를 먼저 보고, 설정하면 Redis 를 두 번째 단계로 본다.
+ * 같은 상품을 동시에 못 찾으면 한 요청만 DB 를 읽고 나머지는 그 결과를 기다린다.
+ * 상품, 옵션, 쿠폰, 판매자 정보가 바뀌면 ProductDetailCacheListener 가 지우고, 다른 서버에는 Redis 채널로 알린다.
+ * 조회수처럼 엔티티를 거치지 않고 바뀌는 값은 TTL 동안 늦게 보일 수 있다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductDetailCache implements MessageListener {
+
+    public static final String CHANNEL = "product:detail:invalidate";
+    private static final String KEY_PREFIX = "product:detail:";
+    private static final int SEGMENT_COUNT = 16;
+
+    // 응답 DTO 의 날짜 형식 ( @JsonFormat ) 은 화면용이라 되읽을 수 없으므로 어노테이션 없이 저장한다
+    private static final JsonMapper MAPPER = JsonMapper.builder()
+            .disable(MapperFeature.USE_ANNOTATIONS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .addModule(new JavaTimeModule())
+            .build();
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${product.detail-cache.max-size:10000}")
+    private int maxSize = 10000;
+
+    @Value("${product.detail-cache.ttl-seconds:60}")
+    private long ttlSeconds = 60;
+
+    @Value("${product.detail-cache.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    private Segment[] segments;
+
+    private final ConcurrentHashMap<Long, CompletableFuture<ProductDetailResponse>> loading = new ConcurrentHashMap<>();
+
+    // 지울 때마다 증가한다. DB 를 읽는 동안 바뀌었으면 이전 값일 수 있으므로 저장하지 않는다
+    private final AtomicLong generation = new AtomicLong();
+
+    private static class CachedDetail {
+        final ProductDetailResponse response;
+        final long expireAt;
+
+        CachedDetail(ProductDetailResponse response, long expireAt) {
+            this.response = response;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private static class Segment extends LinkedHashMap<Long, CachedDetail> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedDetail> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    @PostConstruct
+    void createSegments() {
+        segments = new Segment[SEGMENT_COUNT];
+
+        for(int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(Math.max(1, maxSize / SEGMENT_COUNT));
+        }
+    }
+
+    private Segment segmentOf(long productId) {
+        int hash = Long.hashCode(productId);
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+    // loader 가 null 을 반환하면 ( 없는 상품 ) 저장하지 않고 null 을 반환한다
+    public ProductDetailResponse get(long productId, Supplier<ProductDetailResponse> loader) {
+        ProductDetailResponse cached = getLocal(productId);
+
+        if(cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<ProductDetailResponse> flight = new CompletableFuture<>();
+        CompletableFuture<ProductDetailResponse> running = loading.putIfAbsent(productId, flight);
+
+        if(running != null) {
+            return await(running);
+        }
+
+        try {
+            ProductDetailResponse result = load(productId, loader);
+            flight.complete(result);
+
+            return result;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(productId, flight);
+        }
+    }
+
+    private ProductDetailResponse load(long productId, Supplier<ProductDetailResponse> loader) {
+        long before = generation.get();
+        ProductDetailResponse result = getRemote(productId);
+
+        if(result != null) {
+            putLocal(productId, result, before);
+            return result;
+        }
+
+        result = loader.get();
+
+        if(result != null && putLocal(productId, result, before)) {
+            putRemote(productId, result);
+        }
+
+        return result;
+    }
+
+    private static ProductDetailResponse await(CompletableFuture<ProductDetailResponse> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    private ProductDetailResponse getLocal(long productId) {
+        Segment segment = segmentOf(productId);
+
+        synchronized (segment) {
+            CachedDetail cached = segment.get(productId);
+
+            if(cached == null) {
+                return null;
+            }
+
+            if(cached.expireAt <= System.currentTimeMillis()) {
+                segment.remove(productId);
+                return null;
+            }
+
+            return cached.response;
+        }
+    }
+
+    private boolean putLocal(long productId, ProductDetailResponse response, long before) {
+        Segment segment = segmentOf(productId);
+        long expireAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds);
+
+        synchronized (segment) {
+            if(generation.get() != before) {
+                return false;
+            }
+
+            segment.put(productId, new CachedDetail(response, expireAt));
+            return true;
+        }
+    }
+
+    private ProductDetailResponse getRemote(long productId) {
+        if(!redisEnabled) {
+            return null;
+        }
+
+        try {
+            Object value = redisTemplate.opsForValue().get(KEY_PREFIX + productId);
+
+            return value == null ? null : MAPPER.readValue(value.toString(), ProductDetailResponse.class);
+        } catch (Exception e) {
+            log.error("Failed to read product detail cache : {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void putRemote(long productId, ProductDetailResponse response) {
+        if(!redisEnabled) {
+            return;
+        }
+
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + productId, MAPPER.writeValueAsString(response), ttlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.error("Failed to write product detail cache : {}", e.getMessage());
+        }
+    }
+
+    public void invalidate(long productId) {
+        invalidate(List.of(productId));
+    }
+
+    // 이 서버와 Redis 에서 지우고 다른 서버에 알린다
+    public void invalidate(Collection<Long> productIds) {
+        if(productIds.isEmpty()) {
+            return;
+        }
+
+        removeLocal(productIds);
+
+        if(!redisEnabled) {
+            return;
+        }
+
+        List<String> keys = new ArrayList<>(productIds.size());
+        StringBuilder message = new StringBuilder();
+
+        for(Long productId : productIds) {
+            keys.add(KEY_PREFIX + productId);
+
+            if(message.length() > 0) {
+                message.append(',');
+            }
+            message.append(productId);
+        }
+
+        try {
+            redisTemplate.delete(keys);
+            redisTemplate.convertAndSend(CHANNEL, message.toString());
+        } catch (RuntimeException e) {
+            log.error("Failed to invalidate product detail cache : {}", e.getMessage());
+        }
+    }
+
+    private void removeLocal(Collection<Long> productIds) {
+        generation.incrementAndGet();
+
+        for(Long productId : productIds) {
+            Segment segment = segmentOf(productId);
+
+            synchronized (segment) {
+                segment.remove(productId);
+            }
+
+            // 지우기 전에 시작한 조회를 이후 요청이 기다리지 않도록 뗀다
+            loading.remove(productId);
+        }
+    }
+
+    // 다른 서버에서 지운 상품. Redis 는 보낸 서버가 이미 지웠다
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        List<Long> productIds = new ArrayList<>();
+
+        for(String productId : body.split(",")) {
+            if(!productId.isEmpty()) {
+                productIds.add(Long.parseLong(productId));
+            }
+        }
+
+        removeLocal(productIds);
+    }
+}
@@ -0,0 +1,67 @@
+package com.team.leaf.shopping.product.product.util;
+
+import com.team.leaf.common.util.AfterCommit;
+import com.team.leaf.shopping.coupon.entity.Coupon;
+import com.team.leaf.shopping.product.product.entity.Product;
+import com.team.leaf.shopping.product.product.entity.ProductOption;
+import com.team.leaf.shopping.product.product.repository.ProductRepository;
+import com.team.leaf.user.account.entity.AccountDetail;
+import com.team.leaf.user.account.entity.AccountPrivacy;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/*
+ * 상품 상세 응답에 들어가는 엔티티 ( 상품, 옵션, 쿠폰, 판매자 프로필 ) 가 바뀌면 상세 캐시를 지운다.
+ * 커밋 전에 지우면 다른 요청이 커밋 전 값을 다시 캐시할 수 있으므로 커밋된 뒤에 지운다.
+ * 판매자 계정 ( AccountDetail ) 은 로그인마다 접속일 / 실패 횟수가 바뀌므로 엔티티로 보지 않고,
+ * 상세에 보이는 닉네임을 바꾸는 곳 ( AccountPageService ) 에서 invalidateSeller 를 부른다.
+ */
+@Component
+public class ProductDetailCacheListener {
+
+    private final ProductDetailCache productDetailCache;
+    private final ProductRepository productRepository;
+
+    // 리스너는 엔티티 매니저 팩토리를 만드는 중에 생성되므로 리포지토리는 처음 쓸 때 가져온다
+    public ProductDetailCacheListener(ProductDetailCache productDetailCache, @Lazy ProductRepository productRepository) {
+        this.productDetailCache = productDetailCache;
+        this.productRepository = productRepository;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void invalidate(Object entity) {
+        if(entity instanceof Product) {
+            invalidateProduct(((Product) entity).getProductId());
+        } else if(entity instanceof ProductOption) {
+            invalidateProduct(((ProductOption) entity).getProduct());
+        } else if(entity instanceof Coupon) {
+            invalidateProduct(((Coupon) entity).getProduct());
+        } else if(entity instanceof AccountPrivacy) {
+            AccountDetail account = ((AccountPrivacy) entity).getAccountDetail();
+
+            if(account != null) {
+                invalidateSeller(account.getUserId());
+            }
+        }
+    }
+
+    private void invalidateProduct(Product product) {
+        if(product != null) {
+            invalidateProduct(product.getProductId());
+        }
+    }
+
+    private void invalidateProduct(long productId) {
+        AfterCommit.run(() -> productDetailCache.invalidate(productId));
+    }
+
+    // 판매자의 모든 상품
+    public void invalidateSeller(long sellerId) {
+        AfterCommit.run(() -> productDetailCache.invalidate(productRepository.findProductIdsBySellerId(sellerId)));
+    }
+}
@@ -0,0 +1,409 @@
+package com.team.leaf.shopping.product.product.util;
+
+import com.team.leaf.shopping.product.product.dto.CategoryFacetResponse;
+import com.team.leaf.shopping.product.product.dto.CategoryProductKey;
+import com.team.leaf.shopping.product.product.dto.ProductFacetResponse;
+import com.team.leaf.shopping.product.product.dto.ProductFilterKey;
+import com.team.leaf.shopping.product.product.dto.ProductRequest;
+import com.team.leaf.shopping.product.product.dto.RangeFacetResponse;
+import com.team.leaf.shopping.product.product.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/*
+ * 상품 목록 필터 색인
+ * 카테고리마다, 가격 구간마다, 할인율 구간마다 속한 상품 ID 비트맵을 두고
+ * 카테고리끼리는 OR, 조건끼리는 AND 로 합쳐 필터에 맞는 상품 집합을 만든다.
+ * 구간 경계에 걸친 구간은 상품의 실제 가격 / 할인율로 한 번 더 확인한다.
+ * 같은 비트맵으로 카테고리 / 가격 구간 / 할인율 구간별 상품 수 ( 패싯 ) 도 센다.
+ * 상품과 카테고리 연결이 바뀌면 리스너가 커밋 뒤에 반영하고, 다른 서버의 변경은 주기적으로 다시 읽어 맞춘다.
+ * 다시 읽을 때는 잠그지 않고 새 색인을 만든 뒤 짧게 잠가 교체하고, 만드는 동안 들어온 변경은 순서대로 모아 두었다가 새 색인에 다시 적용한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductFilterIndex {
+
+    private final ProductRepository productRepository;
+
+    // 구간 경계 ( 오름차순 ). 경계가 n 개면 구간은 n + 1 개이고 각 구간은 [ 앞 경계, 뒤 경계 ) 이다
+    @Value("${product.filter.price-bands:10000,30000,50000,100000}")
+    private double[] priceBounds = {10000, 30000, 50000, 100000};
+
+    @Value("${product.filter.discount-bands:5,10,20,30}")
+    private double[] discountBounds = {5, 10, 20, 30};
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 처음 만들기 전에는 null
+    private IndexData data;
+
+    // 새 색인을 만드는 동안 들어온 변경 ( 만들고 있지 않으면 null )
+    private List<Consumer<IndexData>> pendingChanges;
+
+    private volatile boolean initialized;
+
+    // 비트맵과 상품별 값. lock 으로 보호한다
+    private class IndexData {
+        final Map<Long, ProductBitmap> categories = new HashMap<>();
+        final ProductBitmap all = new ProductBitmap();
+        final ProductBitmap[] priceBands = newBands(priceBounds);
+        final ProductBitmap[] discountBands = newBands(discountBounds);
+
+        // 상품 ID 위치에 가격과 할인율을 둔다 ( 상품 ID 는 자동 증가라 빈 칸이 적다 ). 있는 상품인지는 all 로 본다
+        int[] prices = new int[0];
+        double[] discountRates = new double[0];
+
+        final Map<Long, Set<Long>> productCategories = new HashMap<>();
+
+        void update(long productId, int price, double discountRate) {
+            removeProduct(productId);
+            putProduct(productId, price, discountRate);
+        }
+
+        void remove(long productId) {
+            removeProduct(productId);
+
+            Set<Long> categoryIds = productCategories.remove(productId);
+            if(categoryIds != null) {
+                for(Long categoryId : categoryIds) {
+                    removeFromCategory(productId, categoryId);
+                }
+            }
+        }
+
+        void removeCategory(long productId, long categoryId) {
+            Set<Long> categoryIds = productCategories.get(productId);
+
+            if(categoryIds != null && categoryIds.remove(categoryId)) {
+                if(categoryIds.isEmpty()) {
+                    productCategories.remove(productId);
+                }
+
+                removeFromCategory(productId, categoryId);
+            }
+        }
+
+        void putProduct(long productId, int price, double discountRate) {
+            if(productId >= prices.length) {
+                int length = (int) Math.max(productId + 1, prices.length * 2L);
+                prices = Arrays.copyOf(prices, length);
+                discountRates = Arrays.copyOf(discountRates, length);
+            }
+
+            prices[(int) productId] = price;
+            discountRates[(int) productId] = discountRate;
+            all.add(productId);
+            priceBands[bandOf(priceBounds, price)].add(productId);
+            discountBands[bandOf(discountBounds, discountRate)].add(productId);
+        }
+
+        void removeProduct(long productId) {
+            if(!all.contains(productId)) {
+                return;
+            }
+
+            all.remove(productId);
+            priceBands[bandOf(priceBounds, prices[(int) productId])].remove(productId);
+            discountBands[bandOf(discountBounds, discountRates[(int) productId])].remove(productId);
+        }
+
+        void putCategory(long productId, long categoryId) {
+            productCategories.computeIfAbsent(productId, key -> new HashSet<>()).add(categoryId);
+            categories.computeIfAbsent(categoryId, key -> new ProductBitmap()).add(productId);
+        }
+
+        void removeFromCategory(long productId, long categoryId) {
+            ProductBitmap bitmap = categories.get(categoryId);
+
+            if(bitmap != null) {
+                bitmap.remove(productId);
+
+                if(bitmap.isEmpty()) {
+                    categories.remove(categoryId);
+                }
+            }
+        }
+    }
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    /*
+     * 전체 상품을 다시 읽어 새 색인을 만든다. 읽기 전부터 리스너 변경을 모으므로 읽은 뒤 커밋된 변경도 빠지지 않는다.
+     * 다시 적용하는 변경은 값을 덮어쓰거나 지우는 것뿐이므로 이미 읽은 변경이 한 번 더 적용돼도 결과가 같다.
+     */
+    @Scheduled(fixedDelayString = "${product.filter.reload-ms:600000}", initialDelayString = "${product.filter.reload-ms:600000}")
+    public synchronized void initIndex() {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        int products;
+        int categoryCount;
+
+        try {
+            List<ProductFilterKey> productKeys = productRepository.findAllProductFilterKeys();
+            List<CategoryProductKey> categoryKeys = productRepository.findAllCategoryProductKeys();
+            IndexData built = new IndexData();
+
+            for(ProductFilterKey key : productKeys) {
+                built.putProduct(key.getProductId(), key.getPrice(), key.getDiscountRate());
+            }
+
+            for(CategoryProductKey key : categoryKeys) {
+                built.putCategory(key.getProductId(), key.getCategoryId());
+            }
+
+            lock.writeLock().lock();
+            try {
+                for(Consumer<IndexData> change : pendingChanges) {
+                    change.accept(built);
+                }
+
+                data = built;
+                initialized = true;
+                products = built.all.cardinality();
+                categoryCount = built.categories.size();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        log.info("Product filter index built : {} products, {} categories", products, categoryCount);
+    }
+
+    public void update(long productId, int price, double discountRate) {
+        apply(index -> index.update(productId, price, discountRate));
+    }
+
+    public void remove(long productId) {
+        apply(index -> index.remove(productId));
+    }
+
+    public void addCategory(long productId, long categoryId) {
+        apply(index -> index.putCategory(productId, categoryId));
+    }
+
+    public void removeCategory(long productId, long categoryId) {
+        apply(index -> index.removeCategory(productId, categoryId));
+    }
+
+    /*
+     * 지금 색인에 반영하고, 새 색인을 만드는 중이면 모아 둔다.
+     * 처음 만들기 전이고 만드는 중도 아니면 버린다. 커밋 뒤에 불리므로 앞으로 시작할 initIndex 가 DB 에서 함께 읽는다.
+     */
+    private void apply(Consumer<IndexData> change) {
+        lock.writeLock().lock();
+        try {
+            if(initialized) {
+                change.accept(data);
+            }
+
+            if(pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * 요청의 필터에 맞는 상품 집합. 필터가 없으면 null
+     * 반환한 비트맵은 새로 만든 것이므로 잠그지 않고 읽어도 된다.
+     */
+    public ProductBitmap filter(ProductRequest request) {
+        if(!request.hasFilter()) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            return and(and(categoryFilter(request), priceFilter(request)), discountFilter(request));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * matched ( 검색 결과 등, null 이면 모든 상품 ) 중 요청의 필터에 맞는 상품을 카테고리 / 가격 구간 / 할인율 구간별로 센다.
+     * 한 패싯을 셀 때는 그 패싯의 필터는 빼고 다른 필터만 적용한다. 카테고리를 골라도 다른 카테고리의 수가 보인다.
+     * 패싯마다 결과 비트맵을 만들지 않고 교집합의 개수만 센다.
+     */
+    public ProductFacetResponse facets(ProductRequest request, ProductBitmap matched) {
+        lock.readLock().lock();
+        try {
+            // 색인을 만들기 전에는 셀 수 없다
+            if(!initialized) {
+                return new ProductFacetResponse(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+            }
+
+            ProductBitmap categoryFilter = categoryFilter(request);
+            ProductBitmap priceFilter = priceFilter(request);
+            ProductBitmap discountFilter = discountFilter(request);
+
+            ProductBitmap categoryBase = within(matched, and(priceFilter, discountFilter));
+            List<CategoryFacetResponse> categoryFacets = new ArrayList<>();
+
+            for(Map.Entry<Long, ProductBitmap> entry : data.categories.entrySet()) {
+                int count = categoryBase.andCardinality(entry.getValue());
+
+                if(count > 0) {
+                    categoryFacets.add(new CategoryFacetResponse(entry.getKey(), count));
+                }
+            }
+
+            categoryFacets.sort(Comparator.comparingInt(CategoryFacetResponse::getCount).reversed()
+                    .thenComparingLong(CategoryFacetResponse::getCategoryId));
+
+            List<RangeFacetResponse> priceFacets = rangeFacets(data.priceBands, priceBounds, within(matched, and(categoryFilter, discountFilter)));
+            List<RangeFacetResponse> discountFacets = rangeFacets(data.discountBands, discountBounds, within(matched, and(categoryFilter, priceFilter)));
+
+            return new ProductFacetResponse(categoryFacets, priceFacets, discountFacets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // matched 와 filter 의 교집합. 둘 다 없으면 모든 상품
+    private ProductBitmap within(ProductBitmap matched, ProductBitmap filter) {
+        if(matched == null) {
+            return filter == null ? data.all : filter;
+        }
+
+        return filter == null ? matched : matched.and(filter);
+    }
+
+    private static List<RangeFacetResponse> rangeFacets(ProductBitmap[] bands, double[] bounds, ProductBitmap base) {
+        List<RangeFacetResponse> result = new ArrayList<>(bands.length);
+
+        for(int i = 0; i < bands.length; i++) {
+            Double min = i == 0 ? null : bounds[i - 1];
+            Double max = i == bounds.length ? null : bounds[i];
+
+            result.add(new RangeFacetResponse(min, max, base.andCardinality(bands[i])));
+        }
+
+        return result;
+    }
+
+    // 요청의 필터 조건별 상품 집합. 조건이 없으면 null
+    private ProductBitmap categoryFilter(ProductRequest request) {
+        if(request.getCategoryIds() == null || request.getCategoryIds().isEmpty()) {
+            return null;
+        }
+
+        List<ProductBitmap> bitmaps = new ArrayList<>();
+
+        for(Long categoryId : new HashSet<>(request.getCategoryIds())) {
+            ProductBitmap bitmap = data.categories.get(categoryId);
+
+            if(bitmap != null) {
+                bitmaps.add(bitmap);
+            }
+        }
+
+        return ProductBitmap.orAll(bitmaps);
+    }
+
+    private ProductBitmap priceFilter(ProductRequest request) {
+        if(request.getMinPrice() == null && request.getMaxPrice() == null) {
+            return null;
+        }
+
+        double min = request.getMinPrice() == null ? Double.NEGATIVE_INFINITY : request.getMinPrice();
+        double max = request.getMaxPrice() == null ? Double.POSITIVE_INFINITY : request.getMaxPrice();
+
+        return between(data.priceBands, priceBounds, min, max, false);
+    }
+
+    private ProductBitmap discountFilter(ProductRequest request) {
+        if(request.getMinDiscountRate() == null) {
+            return null;
+        }
+
+        return between(data.discountBands, discountBounds, request.getMinDiscountRate(), Double.POSITIVE_INFINITY, true);
+    }
+
+    // 둘 중 null 은 조건 없음
+    private static ProductBitmap and(ProductBitmap bitmap1, ProductBitmap bitmap2) {
+        if(bitmap1 == null || bitmap2 == null) {
+            return bitmap1 == null ? bitmap2 : bitmap1;
+        }
+
+        return bitmap1.and(bitmap2);
+    }
+
+    // [ min, max ] 에 드는 상품. 구간 전체가 들어가면 그대로 합치고, 걸치면 상품마다 값을 확인한다
+    private ProductBitmap between(ProductBitmap[] bands, double[] bounds, double min, double max, boolean discount) {
+        List<ProductBitmap> bitmaps = new ArrayList<>();
+
+        for(int i = 0; i < bands.length; i++) {
+            double lower = i == 0 ? Double.NEGATIVE_INFINITY : bounds[i - 1];
+            double upper = i == bounds.length ? Double.POSITIVE_INFINITY : bounds[i];
+
+            if(upper <= min || lower > max) {
+                continue;
+            }
+
+            if(lower >= min && upper <= max) {
+                bitmaps.add(bands[i]);
+                continue;
+            }
+
+            ProductBitmap partial = discount
+                    ? bands[i].select(productId -> data.discountRates[(int) productId] >= min && data.discountRates[(int) productId] <= max)
+                    : bands[i].select(productId -> data.prices[(int) productId] >= min && data.prices[(int) productId] <= max);
+
+            bitmaps.add(partial);
+        }
+
+        return ProductBitmap.orAll(bitmaps);
+    }
+
+    private static ProductBitmap[] newBands(double[] bounds) {
+        ProductBitmap[] bands = new ProductBitmap[bounds.length + 1];
+
+        for(int i = 0; i < bands.length; i++) {
+            bands[i] = new ProductBitmap();
+        }
+
+        return bands;
+    }
+
+    // value 가 속한 구간 ( value 이하인 경계 수 )
+    private static int bandOf(double[] bounds, double value) {
+        int band = 0;
+
+        while(band < bounds.length && bounds[band] <= value) {
+            band++;
+        }
+
+        return band;
+    }
+}
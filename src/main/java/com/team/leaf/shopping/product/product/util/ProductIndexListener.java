@@ -0,0 +1,53 @@
+package com.team.leaf.shopping.product.product.util;
+
+import com.team.leaf.common.util.AfterCommit;
+import com.team.leaf.shopping.product.product.entity.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/*
+ * 상품 엔티티가 바뀌면 검색 색인과 정렬 순위, 필터 색인에 반영한다.
+ * 롤백된 변경이 색인에 남지 않도록 트랜잭션이 커밋된 뒤에 반영한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductIndexListener {
+
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductRanking productRanking;
+    private final ProductFilterIndex productFilterIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void index(Product product) {
+        long productId = product.getProductId();
+        String title = product.getTitle();
+        String description = product.getDescription();
+        long saleRate = product.getSaleRate();
+        long views = product.getViews();
+        int price = product.getPrice();
+        double discountRate = product.getDiscountRate();
+        long reviewScoreSum = product.getReviewScoreSum();
+        long reviewCount = product.getReviewCount();
+
+        AfterCommit.run(() -> {
+            productSearchIndex.index(productId, title, description, saleRate, views);
+            productRanking.update(productId, price, saleRate, views, reviewScoreSum, reviewCount);
+            productFilterIndex.update(productId, price, discountRate);
+        });
+    }
+
+    @PostRemove
+    public void remove(Product product) {
+        long productId = product.getProductId();
+
+        AfterCommit.run(() -> {
+            productSearchIndex.remove(productId);
+            productRanking.remove(productId);
+            productFilterIndex.remove(productId);
+        });
+    }
+}
@@ -0,0 +1,450 @@
+package com.team.leaf.shopping.product.product.util;
+
+import com.team.leaf.shopping.product.product.dto.ProductRankingKey;
+import com.team.leaf.shopping.product.product.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/*
+ * 정렬 기준별 상품 순위
+ * 전체 상품 목록은 사용자와 관계없이 같으므로 정렬마다 ( 정렬 값, 상품 ID ) 순서의 배열을 미리 만들어 두고 페이지를 잘라 준다.
+ * 정렬 값이 같으면 상품 ID 내림차순이다 ( 커서 기반 페이지네이션과 같은 순서 ).
+ * 상품 저장 / 변경 / 삭제, 조회수 반영, 리뷰 작성이 있을 때 바뀐 상품만 다시 넣고,
+ * 다른 서버에서 생긴 변경은 주기적으로 DB 에서 다시 읽어 맞춘다.
+ * 다시 읽을 때는 잠그지 않고 새 순위를 만든 뒤 교체하고, 만드는 동안 들어온 변경은 모아 두었다가 새 순위에 다시 적용한다.
+ * 배열은 바꿀 때마다 새로 만들어 교체하므로 읽을 때는 잠그지 않는다.
+ * 대신 변경 한 번마다 정렬 6 개의 상품 ID / 정렬 값 배열을 전체 상품 수 크기로 다시 만든다 ( 변경마다 O(전체 상품 수) ).
+ * 조회수는 ProductViewCounter 가 한 주기 동안 모아 한 번에 넘기므로, 상품 하나씩 들어오는 변경은 상품 저장과 리뷰 작성뿐이다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductRanking {
+
+    private static final Page EMPTY_PAGE = new Page(new long[0], new double[0]);
+    private static final long[] EMPTY_IDS = new long[0];
+
+    // 순위를 따로 두는 정렬. 정확도순은 검색 외 목록에서 일반 정렬과 같다
+    private static final SortType[] SORT_TYPES = {
+            SortType.NORMAL, SortType.RATING, SortType.SALE_RATE, SortType.VIEWS, SortType.HIGH_PRICE, SortType.LOW_PRICE
+    };
+
+    private final ProductRepository productRepository;
+
+    // products 와 pendingChanges 는 this 로 보호한다
+    private Map<Long, RankedProduct> products = new HashMap<>();
+    private volatile Map<SortType, SortedProducts> rankings = new EnumMap<>(SortType.class);
+    private volatile boolean initialized;
+
+    // 새 순위를 만드는 동안 들어온 변경 ( 만들고 있지 않으면 null )
+    private List<Change> pendingChanges;
+
+    // 다시 읽기는 한 번에 하나만
+    private final Object reloadLock = new Object();
+
+    // 상품 맵을 바꾸고 바뀌거나 지워진 상품 ID 를 돌려준다
+    private interface Change {
+        long[] apply(Map<Long, RankedProduct> products);
+    }
+
+    private static class RankedProduct {
+        final long productId;
+        int price;
+        long saleRate;
+        long views;
+        long reviewScoreSum;
+        long reviewCount;
+
+        RankedProduct(long productId) {
+            this.productId = productId;
+        }
+
+        double keyOf(SortType sortType) {
+            if(sortType == SortType.RATING) {
+                return reviewCount == 0 ? 0 : (double) reviewScoreSum / reviewCount;
+            }
+            if(sortType == SortType.SALE_RATE) {
+                return saleRate;
+            }
+            if(sortType == SortType.VIEWS) {
+                return views;
+            }
+            if(sortType == SortType.HIGH_PRICE || sortType == SortType.LOW_PRICE) {
+                return price;
+            }
+
+            return productId;
+        }
+    }
+
+    // 한 페이지의 상품 ID 와 정렬 값
+    public static class Page {
+        private final long[] productIds;
+        private final double[] keys;
+
+        Page(long[] productIds, double[] keys) {
+            this.productIds = productIds;
+            this.keys = keys;
+        }
+
+        public long[] getProductIds() {
+            return productIds;
+        }
+
+        public double[] getKeys() {
+            return keys;
+        }
+    }
+
+    // 한 정렬의 순서대로 놓인 상품 ID 와 정렬 값
+    private static class SortedProducts {
+        final long[] productIds;
+        final double[] keys;
+
+        SortedProducts(long[] productIds, double[] keys) {
+            this.productIds = productIds;
+            this.keys = keys;
+        }
+
+        // from 부터 filter 에 든 상품만 size 개. 뒤로 갈수록 건너뛰는 상품이 늘지만 비트맵 확인만 하므로 SQL 보다 싸다
+        Page slice(int from, int size, ProductBitmap filter, int skip) {
+            long[] pageIds = new long[size];
+            double[] pageKeys = new double[size];
+            int length = 0;
+
+            for(int i = from; i < productIds.length && length < size; i++) {
+                if(!filter.contains(productIds[i])) {
+                    continue;
+                }
+
+                if(skip > 0) {
+                    skip--;
+                    continue;
+                }
+
+                pageIds[length] = productIds[i];
+                pageKeys[length] = keys[i];
+                length++;
+            }
+
+            return new Page(Arrays.copyOf(pageIds, length), Arrays.copyOf(pageKeys, length));
+        }
+
+        Page slice(int from, int size) {
+            int to = Math.min(productIds.length, from + size);
+
+            if(from >= to) {
+                return EMPTY_PAGE;
+            }
+
+            return new Page(Arrays.copyOfRange(productIds, from, to), Arrays.copyOfRange(keys, from, to));
+        }
+    }
+
+    // a 가 b 보다 앞이면 음수
+    private static int compare(SortType sortType, double key1, long productId1, double key2, long productId2) {
+        int compare = sortType == SortType.LOW_PRICE ? Double.compare(key1, key2) : Double.compare(key2, key1);
+
+        return compare != 0 ? compare : Long.compare(productId2, productId1);
+    }
+
+    private static SortType rankingOf(SortType sortType) {
+        return sortType == SortType.RELEVANCE ? SortType.NORMAL : sortType;
+    }
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    /*
+     * 전체 상품을 다시 읽어 새 순위를 만든다. 읽기 전부터 변경을 모으므로 읽은 뒤 커밋된 변경도 빠지지 않는다.
+     * 상품 저장 / 삭제와 리뷰 집계 덮어쓰기는 한 번 더 적용돼도 결과가 같지만, 조회수와 리뷰 점수 증가분은
+     * 모으기 시작한 뒤 읽기 전까지의 짧은 사이에 커밋됐다면 두 번 더해진다. 이 차이는 다음 주기에 다시 읽으며 맞춰진다.
+     */
+    @Scheduled(fixedDelayString = "${product.ranking.reload-ms:600000}", initialDelayString = "${product.ranking.reload-ms:600000}")
+    public void initRanking() {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                pendingChanges = new ArrayList<>();
+            }
+
+            int size;
+
+            try {
+                List<ProductRankingKey> keys = productRepository.findAllProductRankingKeys();
+                Map<Long, RankedProduct> loaded = new HashMap<>();
+
+                for(ProductRankingKey key : keys) {
+                    RankedProduct product = new RankedProduct(key.getProductId());
+                    product.price = key.getPrice();
+                    product.saleRate = key.getSaleRate();
+                    product.views = key.getViews();
+                    product.reviewScoreSum = key.getReviewScoreSum();
+                    product.reviewCount = key.getReviewCount();
+
+                    loaded.put(product.productId, product);
+                }
+
+                Map<SortType, SortedProducts> result = new EnumMap<>(SortType.class);
+                for(SortType sortType : SORT_TYPES) {
+                    result.put(sortType, merge(sortType, null, EMPTY_IDS, loaded.values()));
+                }
+
+                synchronized (this) {
+                    Set<Long> changedIds = new HashSet<>();
+                    for(Change change : pendingChanges) {
+                        for(long productId : change.apply(loaded)) {
+                            changedIds.add(productId);
+                        }
+                    }
+
+                    products = loaded;
+                    rankings = rerank(result, loaded, changedIds.stream().mapToLong(Long::longValue).toArray());
+                    initialized = true;
+                    size = loaded.size();
+                }
+            } finally {
+                synchronized (this) {
+                    pendingChanges = null;
+                }
+            }
+
+            log.info("Product ranking built : {} products", size);
+        }
+    }
+
+    /*
+     * 저장되거나 변경된 상품. 이미 있는 상품의 조회수와 리뷰 점수는 엔티티를 읽은 뒤 일괄 갱신됐을 수 있으므로
+     * 각자의 증가분 ( increaseViews, addReviewScore ) 으로만 바꾸고 여기서는 새 상품일 때만 쓴다.
+     */
+    public void update(long productId, int price, long saleRate, long views, long reviewScoreSum, long reviewCount) {
+        apply(products -> {
+            RankedProduct product = products.get(productId);
+
+            if(product == null) {
+                product = new RankedProduct(productId);
+                product.views = views;
+                product.reviewScoreSum = reviewScoreSum;
+                product.reviewCount = reviewCount;
+                products.put(productId, product);
+            }
+
+            product.price = price;
+            product.saleRate = saleRate;
+
+            return new long[] {productId};
+        });
+    }
+
+    public void remove(long productId) {
+        apply(products -> products.remove(productId) == null ? EMPTY_IDS : new long[] {productId});
+    }
+
+    // ProductViewCounter 가 DB 에 반영한 조회수 증가분
+    public void increaseViews(Map<Long, Long> views) {
+        apply(products -> {
+            long[] changedIds = new long[views.size()];
+            int length = 0;
+
+            for(Map.Entry<Long, Long> entry : views.entrySet()) {
+                RankedProduct product = products.get(entry.getKey());
+
+                if(product != null) {
+                    product.views += entry.getValue();
+                    changedIds[length++] = product.productId;
+                }
+            }
+
+            return Arrays.copyOf(changedIds, length);
+        });
+    }
+
+    public void addReviewScore(long productId, long scoreDelta, long countDelta) {
+        apply(products -> {
+            RankedProduct product = products.get(productId);
+
+            if(product == null) {
+                return EMPTY_IDS;
+            }
+
+            product.reviewScoreSum += scoreDelta;
+            product.reviewCount += countDelta;
+
+            return new long[] {productId};
+        });
+    }
+
+    // ReviewStatisticsReconciler 가 리뷰 테이블에서 다시 계산한 집계로 덮어쓴다
+    public void setReviewScore(long productId, long reviewScoreSum, long reviewCount) {
+        apply(products -> {
+            RankedProduct product = products.get(productId);
+
+            if(product == null) {
+                return EMPTY_IDS;
+            }
+
+            product.reviewScoreSum = reviewScoreSum;
+            product.reviewCount = reviewCount;
+
+            return new long[] {productId};
+        });
+    }
+
+    // 지금 순위에 반영하고, 새 순위를 만드는 중이면 모아 둔다
+    private synchronized void apply(Change change) {
+        long[] changedIds = change.apply(products);
+
+        if(changedIds.length > 0) {
+            rankings = rerank(rankings, products, changedIds);
+        }
+
+        if(pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+    }
+
+    // 바뀐 상품을 기존 순위에서 빼고, products 에 남아 있으면 새 정렬 값 위치에 넣는다
+    private static Map<SortType, SortedProducts> rerank(Map<SortType, SortedProducts> before, Map<Long, RankedProduct> products, long[] changedIds) {
+        if(changedIds.length == 0) {
+            return before;
+        }
+
+        Arrays.sort(changedIds);
+
+        List<RankedProduct> changed = new ArrayList<>(changedIds.length);
+        for(long productId : changedIds) {
+            RankedProduct product = products.get(productId);
+
+            if(product != null) {
+                changed.add(product);
+            }
+        }
+
+        Map<SortType, SortedProducts> result = new EnumMap<>(SortType.class);
+        for(SortType sortType : SORT_TYPES) {
+            result.put(sortType, merge(sortType, before.get(sortType), changedIds, changed));
+        }
+
+        return result;
+    }
+
+    // before 에서 excluded ( 정렬된 상품 ID ) 를 뺀 순서와 정렬한 added 를 한 번에 합친다
+    private static SortedProducts merge(SortType sortType, SortedProducts before, long[] excluded, Collection<RankedProduct> added) {
+        int beforeLength = before == null ? 0 : before.productIds.length;
+
+        long[] addedIds = new long[added.size()];
+        double[] addedKeys = new double[added.size()];
+        Integer[] order = new Integer[added.size()];
+        int index = 0;
+
+        for(RankedProduct product : added) {
+            addedIds[index] = product.productId;
+            addedKeys[index] = product.keyOf(sortType);
+            order[index] = index;
+            index++;
+        }
+
+        Arrays.sort(order, (o1, o2) -> compare(sortType, addedKeys[o1], addedIds[o1], addedKeys[o2], addedIds[o2]));
+
+        long[] productIds = new long[beforeLength + added.size()];
+        double[] keys = new double[productIds.length];
+        int length = 0;
+        int i = 0;
+        int j = 0;
+
+        while(i < beforeLength || j < order.length) {
+            if(i < beforeLength && contains(excluded, before.productIds[i])) {
+                i++;
+                continue;
+            }
+
+            boolean takeBefore = j == order.length || (i < beforeLength
+                    && compare(sortType, before.keys[i], before.productIds[i], addedKeys[order[j]], addedIds[order[j]]) < 0);
+
+            if(takeBefore) {
+                productIds[length] = before.productIds[i];
+                keys[length] = before.keys[i];
+                i++;
+            } else {
+                productIds[length] = addedIds[order[j]];
+                keys[length] = addedKeys[order[j]];
+                j++;
+            }
+
+            length++;
+        }
+
+        return new SortedProducts(Arrays.copyOf(productIds, length), Arrays.copyOf(keys, length));
+    }
+
+    // 상품 하나의 변경이 대부분이므로 그때는 바로 비교한다
+    private static boolean contains(long[] excluded, long productId) {
+        if(excluded.length == 1) {
+            return excluded[0] == productId;
+        }
+
+        return excluded.length > 1 && Arrays.binarySearch(excluded, productId) >= 0;
+    }
+
+    // 순위에서 offset 번째부터 size 개의 상품 ID
+    public Page page(SortType sortType, int offset, int size) {
+        SortedProducts ranking = rankings.get(rankingOf(sortType));
+
+        return ranking == null ? EMPTY_PAGE : ranking.slice(offset, size);
+    }
+
+    // 순위에서 filter ( ProductFilterIndex ) 에 든 상품 중 offset 번째부터 size 개
+    public Page page(SortType sortType, ProductBitmap filter, int offset, int size) {
+        if(filter == null) {
+            return page(sortType, offset, size);
+        }
+
+        SortedProducts ranking = rankings.get(rankingOf(sortType));
+
+        return ranking == null || filter.isEmpty() ? EMPTY_PAGE : ranking.slice(0, size, filter, offset);
+    }
+
+    // 커서 ( 이전 페이지 마지막 상품 ) 다음부터 size 개의 상품 ID
+    public Page pageAfter(SortType sortType, ProductCursor cursor, int size) {
+        return pageAfter(sortType, null, cursor, size);
+    }
+
+    // 커서 다음부터 filter 에 든 상품 size 개. filter 가 null 이면 모든 상품
+    public Page pageAfter(SortType sortType, ProductBitmap filter, ProductCursor cursor, int size) {
+        SortType rankingType = rankingOf(sortType);
+        SortedProducts ranking = rankings.get(rankingType);
+
+        if(ranking == null || (filter != null && filter.isEmpty())) {
+            return EMPTY_PAGE;
+        }
+
+        int from = cursor == null ? 0 : positionAfter(rankingType, ranking, cursor);
+
+        return filter == null ? ranking.slice(from, size) : ranking.slice(from, size, filter, 0);
+    }
+
+    // 커서보다 뒤에 오는 첫 위치
+    private static int positionAfter(SortType rankingType, SortedProducts ranking, ProductCursor cursor) {
+        long productId = cursor.getProductId();
+        double key = rankingType == SortType.NORMAL ? productId : cursor.doubleKey();
+
+        int low = 0;
+        int high = ranking.productIds.length;
+
+        while(low < high) {
+            int mid = (low + high) >>> 1;
+
+            if(compare(rankingType, ranking.keys[mid], ranking.productIds[mid], key, productId) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+}
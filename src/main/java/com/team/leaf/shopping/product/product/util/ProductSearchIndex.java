@@ -0,0 +1,459 @@
+package com.team.leaf.shopping.product.product.util;
+
+import com.team.leaf.shopping.product.product.dto.ProductSearchDocument;
+import com.team.leaf.shopping.product.product.dto.ProductSignal;
+import com.team.leaf.shopping.product.product.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * 상품명과 상품 설명으로 만든 역색인
+ * 토큰마다 그 토큰을 가진 상품 ID 목록( PostingList ) 을 들고,
+ * 검색어의 모든 토큰 목록을 교집합해 상품 ID 를 찾는다.
+ * 상품이 저장 / 변경 / 삭제되면 ProductIndexListener 가 바뀐 상품만 다시 색인하고,
+ * 리스너는 변경이 일어난 서버에서만 불리므로 다른 서버의 변경은 주기적으로 전체를 다시 읽어 맞춘다.
+ * 다시 읽을 때는 잠그지 않고 새 색인을 만든 뒤 짧게 잠가 교체하고, 만드는 동안 리스너로 들어온 변경은 상품마다 마지막 것만 남겨 두었다가 새 색인에 다시 적용한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    // 상품명 토큰은 상품 설명 토큰보다 가중치를 높게 준다
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    // BM25 파라미터
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ProductRepository productRepository;
+
+    // 정확도순 정렬에서 BM25 점수에 더하는 인기 지표 가중치
+    @Value("${product.search.weight.sale-rate:0.3}")
+    private double saleRateWeight = 0.3;
+
+    @Value("${product.search.weight.views:0.1}")
+    private double viewsWeight = 0.1;
+
+    @Value("${product.search.weight.rating:0.2}")
+    private double ratingWeight = 0.2;
+
+    private IndexData data = new IndexData();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 새 색인을 만드는 동안 들어온 상품별 마지막 변경 ( 만들고 있지 않으면 null )
+    private Map<Long, PendingDocument> pendingDocuments;
+
+    // 정확도 높은 순서의 상품 ID 와 점수
+    public static class Ranking {
+        private final long[] productIds;
+        private final double[] scores;
+
+        Ranking(long[] productIds, double[] scores) {
+            this.productIds = productIds;
+            this.scores = scores;
+        }
+
+        public long[] getProductIds() {
+            return productIds;
+        }
+
+        public double[] getScores() {
+            return scores;
+        }
+    }
+
+    private static final Ranking EMPTY_RANKING = new Ranking(EMPTY, new double[0]);
+
+    private static class IndexedDocument {
+        // 다시 색인할 때 빠진 토큰만 지우기 위해 토큰과 등장 횟수를 기억한다
+        final Map<String, Integer> frequencies;
+        final int length;
+        long saleRate;
+        long views;
+        double averageRating;
+
+        IndexedDocument(Map<String, Integer> frequencies) {
+            this.frequencies = frequencies;
+
+            int length = 0;
+            for(int frequency : frequencies.values()) {
+                length += frequency;
+            }
+            this.length = length;
+        }
+    }
+
+    // 리스너로 들어온 변경 ( removed 면 삭제 )
+    private static class PendingDocument {
+        final String title;
+        final String description;
+        final long saleRate;
+        final long views;
+        final boolean removed;
+
+        PendingDocument(String title, String description, long saleRate, long views, boolean removed) {
+            this.title = title;
+            this.description = description;
+            this.saleRate = saleRate;
+            this.views = views;
+            this.removed = removed;
+        }
+    }
+
+    // 토큰별 상품 목록과 상품별 색인 정보. lock 으로 보호한다
+    private static class IndexData {
+        final Map<String, PostingList> postingLists = new HashMap<>();
+        final Map<Long, IndexedDocument> documents = new HashMap<>();
+        long totalLength;
+
+        IndexedDocument index(long productId, String title, String description) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            ProductTokenizer.countTokens(title, TITLE_WEIGHT, frequencies);
+            ProductTokenizer.countTokens(description, DESCRIPTION_WEIGHT, frequencies);
+
+            IndexedDocument document = new IndexedDocument(frequencies);
+            IndexedDocument before = documents.put(productId, document);
+            totalLength += document.length;
+
+            if(before != null) {
+                totalLength -= before.length;
+                document.saleRate = before.saleRate;
+                document.views = before.views;
+                document.averageRating = before.averageRating;
+
+                Set<String> removed = new HashSet<>(before.frequencies.keySet());
+                removed.removeAll(frequencies.keySet());
+                removeTokens(productId, removed);
+            }
+
+            for(Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                if(before == null || !entry.getValue().equals(before.frequencies.get(entry.getKey()))) {
+                    postingLists.computeIfAbsent(entry.getKey(), key -> new PostingList()).add(productId, entry.getValue());
+                }
+            }
+
+            return document;
+        }
+
+        void remove(long productId) {
+            IndexedDocument document = documents.remove(productId);
+
+            if(document != null) {
+                totalLength -= document.length;
+                removeTokens(productId, document.frequencies.keySet());
+            }
+        }
+
+        private void removeTokens(long productId, Set<String> tokens) {
+            for(String token : tokens) {
+                PostingList postingList = postingLists.get(token);
+
+                if(postingList == null) {
+                    continue;
+                }
+
+                postingList.remove(productId);
+                if(postingList.size() == 0) {
+                    postingLists.remove(token);
+                }
+            }
+        }
+
+        void apply(long productId, PendingDocument pending) {
+            if(pending.removed) {
+                remove(productId);
+                return;
+            }
+
+            IndexedDocument document = index(productId, pending.title, pending.description);
+            document.saleRate = pending.saleRate;
+            document.views = pending.views;
+        }
+
+        void applySignals(List<ProductSignal> signals) {
+            for(ProductSignal signal : signals) {
+                IndexedDocument document = documents.get(signal.getProductId());
+
+                if(document != null) {
+                    document.saleRate = signal.getSaleRate();
+                    document.views = signal.getViews();
+                    document.averageRating = signal.getAverageRating();
+                }
+            }
+        }
+    }
+
+    /*
+     * 전체 상품을 다시 읽어 새 색인을 만든다. 읽기 전부터 리스너 변경을 모으므로 읽은 뒤 커밋된 변경도 빠지지 않는다.
+     * 다시 적용하는 변경은 상품 전체를 덮어쓰므로 이미 읽은 변경이 한 번 더 적용돼도 결과가 같다.
+     */
+    @Scheduled(fixedDelayString = "${product.search.reload-ms:600000}", initialDelayString = "${product.search.reload-ms:600000}")
+    public synchronized void initIndex() {
+        lock.writeLock().lock();
+        try {
+            pendingDocuments = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        int products;
+        int tokens;
+
+        try {
+            List<ProductSearchDocument> searchDocuments = productRepository.findAllSearchDocuments();
+            IndexData built = new IndexData();
+
+            for(ProductSearchDocument document : searchDocuments) {
+                built.index(document.getProductId(), document.getTitle(), document.getDescription());
+            }
+            built.applySignals(productRepository.findAllProductSignals());
+
+            lock.writeLock().lock();
+            try {
+                for(Map.Entry<Long, PendingDocument> entry : pendingDocuments.entrySet()) {
+                    built.apply(entry.getKey(), entry.getValue());
+                }
+
+                data = built;
+                products = built.documents.size();
+                tokens = built.postingLists.size();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingDocuments = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        log.info("Product search index built : {} products, {} tokens", products, tokens);
+    }
+
+    // 판매량, 조회수, 리뷰 평점은 천천히 바뀌므로 주기적으로 한 번에 다시 읽는다
+    @Scheduled(fixedDelayString = "${product.search.signal-refresh-ms:300000}",
+            initialDelayString = "${product.search.signal-refresh-ms:300000}")
+    public void refreshSignals() {
+        List<ProductSignal> signals = productRepository.findAllProductSignals();
+
+        lock.writeLock().lock();
+        try {
+            data.applySignals(signals);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(long productId, String title, String description, long saleRate, long views) {
+        record(productId, new PendingDocument(title, description, saleRate, views, false));
+    }
+
+    public void remove(long productId) {
+        record(productId, new PendingDocument(null, null, 0, 0, true));
+    }
+
+    private void record(long productId, PendingDocument change) {
+        lock.writeLock().lock();
+        try {
+            data.apply(productId, change);
+
+            if(pendingDocuments != null) {
+                pendingDocuments.put(productId, change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 검색어의 모든 토큰을 가진 상품 ID ( 오름차순 )
+    public long[] search(String query) {
+        lock.readLock().lock();
+        try {
+            List<PostingList.Postings> postings = postingsOf(query);
+
+            return postings == null ? EMPTY : intersect(postings);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Ranking searchByRelevance(String query, int limit) {
+        return searchByRelevance(query, null, limit);
+    }
+
+    public Ranking searchByRelevance(String query, int limit, double afterScore, long afterProductId) {
+        return searchByRelevance(query, null, limit, afterScore, afterProductId);
+    }
+
+    public Ranking searchByRelevance(String query, ProductBitmap filter, int limit) {
+        return searchByRelevance(query, filter, limit, Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+    }
+
+    /*
+     * 검색 결과 중 정확도( BM25 + 인기 지표 ) 가 높은 순서로 limit 개.
+     * ( afterScore, afterProductId ) 보다 뒤에 오는 결과만 고르므로 커서 기반 페이지네이션에 사용할 수 있다.
+     * 전체를 정렬하지 않고 크기가 limit 인 힙으로 상위 결과만 남긴다.
+     * filter ( ProductFilterIndex ) 가 있으면 점수를 매기기 전에 filter 에 든 상품만 남긴다.
+     */
+    public Ranking searchByRelevance(String query, ProductBitmap filter, int limit, double afterScore, long afterProductId) {
+        lock.readLock().lock();
+        try {
+            List<PostingList.Postings> postings = postingsOf(query);
+
+            if(postings == null || limit <= 0) {
+                return EMPTY_RANKING;
+            }
+
+            long[] productIds = intersect(postings);
+
+            if(filter != null) {
+                productIds = filter.and(ProductBitmap.of(productIds)).toArray();
+            }
+
+            double[] scores = new double[productIds.length];
+            double[] lengthNorms = new double[productIds.length];
+            double averageLength = data.documents.isEmpty() ? 1 : (double) data.totalLength / data.documents.size();
+
+            for(int i = 0; i < productIds.length; i++) {
+                IndexedDocument document = data.documents.get(productIds[i]);
+
+                lengthNorms[i] = K1 * (1 - B + B * document.length / averageLength);
+                scores[i] = popularityOf(document);
+            }
+
+            for(PostingList.Postings posting : postings) {
+                addTermScores(posting, productIds, lengthNorms, scores);
+            }
+
+            return topOf(productIds, scores, limit, afterScore, afterProductId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double popularityOf(IndexedDocument document) {
+        return saleRateWeight * Math.log1p(document.saleRate)
+                + viewsWeight * Math.log1p(document.views)
+                + ratingWeight * document.averageRating;
+    }
+
+    // 토큰 하나의 BM25 점수를 결과 상품마다 더한다. 두 목록 모두 오름차순이므로 한 번씩만 훑는다
+    private void addTermScores(PostingList.Postings posting, long[] productIds, double[] lengthNorms, double[] scores) {
+        int documentCount = data.documents.size();
+        int documentFrequency = posting.productIds.length;
+        double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+
+        for(int i = 0, j = 0; i < productIds.length && j < posting.productIds.length; ) {
+            if(productIds[i] < posting.productIds[j]) {
+                i++;
+            } else if(productIds[i] > posting.productIds[j]) {
+                j++;
+            } else {
+                int frequency = posting.frequencies[j];
+                scores[i] += idf * frequency * (K1 + 1) / (frequency + lengthNorms[i]);
+                i++;
+                j++;
+            }
+        }
+    }
+
+    private static Ranking topOf(long[] productIds, double[] scores, int limit, double afterScore, long afterProductId) {
+        // 점수가 가장 낮은 결과가 맨 위에 오는 힙. 점수가 같으면 최신 상품을 남긴다
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(limit, productIds.length) + 1, (o1, o2) -> {
+            int compare = Double.compare(scores[o1], scores[o2]);
+            return compare != 0 ? compare : Long.compare(productIds[o1], productIds[o2]);
+        });
+
+        for(int i = 0; i < productIds.length; i++) {
+            if(scores[i] > afterScore || (scores[i] == afterScore && productIds[i] >= afterProductId)) {
+                continue;
+            }
+
+            heap.offer(i);
+
+            if(heap.size() > limit) {
+                heap.poll();
+            }
+        }
+
+        long[] resultIds = new long[heap.size()];
+        double[] resultScores = new double[heap.size()];
+
+        for(int i = resultIds.length - 1; i >= 0; i--) {
+            int index = heap.poll();
+            resultIds[i] = productIds[index];
+            resultScores[i] = scores[index];
+        }
+
+        return new Ranking(resultIds, resultScores);
+    }
+
+    // 검색어 토큰마다 디코딩한 목록. 토큰이 없거나 없는 토큰이 있으면 null
+    private List<PostingList.Postings> postingsOf(String query) {
+        Set<String> tokens = ProductTokenizer.queryTokensOf(query);
+
+        if(tokens.isEmpty()) {
+            return null;
+        }
+
+        List<PostingList> lists = new ArrayList<>(tokens.size());
+
+        for(String token : tokens) {
+            PostingList postingList = data.postingLists.get(token);
+
+            if(postingList == null) {
+                return null;
+            }
+
+            lists.add(postingList);
+        }
+
+        // 가장 짧은 목록부터 교집합해야 중간 결과가 작다
+        lists.sort(Comparator.comparingInt(PostingList::size));
+
+        List<PostingList.Postings> postings = new ArrayList<>(lists.size());
+        for(PostingList postingList : lists) {
+            postings.add(postingList.decode());
+        }
+
+        return postings;
+    }
+
+    private static long[] intersect(List<PostingList.Postings> postings) {
+        long[] result = postings.get(0).productIds;
+
+        for(int k = 1; k < postings.size() && result.length > 0; k++) {
+            long[] other = postings.get(k).productIds;
+            long[] merged = new long[Math.min(result.length, other.length)];
+            int size = 0;
+
+            for(int i = 0, j = 0; i < result.length && j < other.length; ) {
+                if(result[i] < other[j]) {
+                    i++;
+                } else if(result[i] > other[j]) {
+                    j++;
+                } else {
+                    merged[size++] = result[i];
+                    i++;
+                    j++;
+                }
+            }
+
+            result = Arrays.copyOf(merged, size);
+        }
+
+        return result;
+    }
+}
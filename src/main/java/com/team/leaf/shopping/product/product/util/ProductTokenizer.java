@@ -0,0 +1,76 @@
+package com.team.leaf.shopping.product.product.util;
+
+import com.team.leaf.shopping.search.util.GraphemeSeparation;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * 상품 검색 색인용 토크나이저
+ * 글자와 숫자가 아닌 문자로 단어를 나누고, 단어마다 한 글자 / 두 글자( bigram ) 토큰을 만든다.
+ * 입력 중인 검색어( 딸ㄱ ) 를 위해 앞 글자 + 다음 글자의 초성 토큰도 만든다.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ProductTokenizer {
+
+    // 문서( 상품명, 상품 설명 ) 토큰의 등장 횟수에 weight 를 곱해 counts 에 더한다
+    public static void countTokens(String text, int weight, Map<String, Integer> counts) {
+        if(text == null) {
+            return;
+        }
+
+        for(String word : wordsOf(text)) {
+            for(int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                counts.merge(String.valueOf(c), weight, Integer::sum);
+
+                if(i + 1 < word.length()) {
+                    char next = word.charAt(i + 1);
+                    counts.merge(new String(new char[] {c, next}), weight, Integer::sum);
+
+                    if(GraphemeSeparation.isSyllable(next)) {
+                        counts.merge(new String(new char[] {c, GraphemeSeparation.initialOf(next)}), weight, Integer::sum);
+                    }
+                }
+            }
+        }
+    }
+
+    // 검색어 토큰. 모든 토큰을 가진 문서가 검색 결과이다
+    public static Set<String> queryTokensOf(String query) {
+        Set<String> tokens = new LinkedHashSet<>();
+
+        for(String word : wordsOf(query)) {
+            // 한 글자 단어는 그 글자로 찾고, 자음 하나만 입력한 단어는 조건에서 뺀다
+            if(word.length() == 1) {
+                if(!GraphemeSeparation.isConsonant(word.charAt(0))) {
+                    tokens.add(word);
+                }
+
+                continue;
+            }
+
+            for(int i = 0; i + 1 < word.length(); i++) {
+                tokens.add(word.substring(i, i + 2));
+            }
+        }
+
+        return tokens;
+    }
+
+    private static String[] wordsOf(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+
+        for(int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            normalized.append(Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : ' ');
+        }
+
+        String trimmed = normalized.toString().trim();
+
+        return trimmed.isEmpty() ? new String[0] : trimmed.split(" +");
+    }
+}
@@ -0,0 +1,142 @@
+package com.team.leaf.shopping.product.product.util;
+
+import com.team.leaf.shopping.product.product.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * 상품 상세 조회수
+ * 조회마다 행을 갱신하지 않고 상품별 LongAdder 에 모아 두었다가 주기적으로 한 번의 배치로 더한다.
+ * 같은 사용자가 윈도우 안에 다시 본 상품은 한 번만 센다. 종료할 때 남은 조회수를 반영한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductViewCounter {
+
+    private final ProductRepository productRepository;
+    private final ProductRanking productRanking;
+
+    @Value("${product.view.dedupe-window-minutes:30}")
+    private long dedupeWindowMinutes = 30;
+
+    // 중복 확인을 위해 기억하는 ( 상품, 사용자 ) 수. 넘으면 중복 확인 없이 센다
+    @Value("${product.view.dedupe-max-size:100000}")
+    private int dedupeMaxSize = 100000;
+
+    private final ConcurrentHashMap<Long, LongAdder> views = new ConcurrentHashMap<>();
+
+    // 지난 반영에서 views 에서 뺀 카운터. 빼기 직전에 꺼내 간 요청이 더한 값을 다음 반영에서 마저 가져간다
+    private List<Map.Entry<Long, LongAdder>> retired = new ArrayList<>();
+
+    // "상품 ID:사용자" -> 다시 셀 수 있는 시각
+    private final ConcurrentHashMap<String, Long> recentViews = new ConcurrentHashMap<>();
+
+    public void increase(long productId, String viewer) {
+        if(viewer != null && !isFirstView(productId, viewer)) {
+            return;
+        }
+
+        views.computeIfAbsent(productId, key -> new LongAdder()).increment();
+    }
+
+    private boolean isFirstView(long productId, String viewer) {
+        long now = System.currentTimeMillis();
+        String key = productId + ":" + viewer;
+        Long expireAt = recentViews.get(key);
+
+        if(expireAt != null && expireAt > now) {
+            return false;
+        }
+
+        if(expireAt == null && recentViews.size() >= dedupeMaxSize) {
+            return true;
+        }
+
+        long newExpireAt = now + TimeUnit.MINUTES.toMillis(dedupeWindowMinutes);
+
+        // 동시에 같은 키로 들어온 요청 중 한 요청만 센다
+        if(expireAt == null) {
+            return recentViews.putIfAbsent(key, newExpireAt) == null;
+        }
+
+        return recentViews.replace(key, expireAt, newExpireAt);
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${product.view.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Map<Long, Long> drained = new TreeMap<>();
+
+        for(Map.Entry<Long, LongAdder> entry : retired) {
+            drain(drained, entry.getKey(), entry.getValue());
+        }
+
+        List<Map.Entry<Long, LongAdder>> nextRetired = new ArrayList<>();
+
+        for(Map.Entry<Long, LongAdder> entry : views.entrySet()) {
+            long count = drain(drained, entry.getKey(), entry.getValue());
+
+            // 한 주기 동안 조회가 없던 상품은 카운터를 치운다
+            if(count == 0 && views.remove(entry.getKey(), entry.getValue())) {
+                nextRetired.add(entry);
+            }
+        }
+
+        retired = nextRetired;
+        removeExpiredViews();
+
+        if(drained.isEmpty()) {
+            return;
+        }
+
+        try {
+            // 상품 ID 순서로 갱신해 여러 서버가 동시에 반영해도 행 잠금 순서가 같다
+            productRepository.increaseViews(drained);
+        } catch (RuntimeException e) {
+            // 반영하지 못한 조회수는 다음 주기에 다시 시도한다
+            for(Map.Entry<Long, Long> entry : drained.entrySet()) {
+                views.computeIfAbsent(entry.getKey(), key -> new LongAdder()).add(entry.getValue());
+            }
+
+            log.error("Failed to flush product views : {}", e.getMessage());
+            return;
+        }
+
+        productRanking.increaseViews(drained);
+    }
+
+    // sumThenReset 은 셀마다 값을 읽으며 0 으로 바꾸므로 그 사이의 증가는 다음 반영으로 넘어간다
+    private static long drain(Map<Long, Long> drained, long productId, LongAdder adder) {
+        long count = adder.sumThenReset();
+
+        if(count != 0) {
+            drained.merge(productId, count, Long::sum);
+        }
+
+        return count;
+    }
+
+    private void removeExpiredViews() {
+        long now = System.currentTimeMillis();
+
+        for(Map.Entry<String, Long> entry : recentViews.entrySet()) {
+            if(entry.getValue() <= now) {
+                // 그 사이 다시 본 경우( 시각이 바뀐 경우 ) 는 지우지 않는다
+                recentViews.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+}
@@ -5,17 +5,17 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 import static com.team.leaf.shopping.product.product.entity.QProduct.product;
-import static com.team.leaf.shopping.product.review.entity.QReview.review;
 
 @RequiredArgsConstructor
 @Getter
 public enum SortType {
     NORMAL(product.productId.desc() , "NORMAL"),    // 일반
-    RATING(review.score.avg().desc() , "RATING"),     // 평점순
+    RATING(product.averageRating.desc() , "RATING"),     // 평점순
     SALE_RATE(product.saleRate.desc() , "SALE_RATE"), // 판매량
     VIEWS((product.views.desc()) , "VIEWS"),      // 조회수
     HIGH_PRICE(product.price.desc() , "HIGH_PRICE"),      // 가격순 높은 순
-    LOW_PRICE(product.price.asc() , "LOW_PRICE");      // 가격 낮은 순
+    LOW_PRICE(product.price.asc() , "LOW_PRICE"),      // 가격 낮은 순
+    RELEVANCE(product.productId.desc() , "RELEVANCE");      // 검색 정확도순 ( 검색 외 목록에서는 일반과 같음 )
 
     private final OrderSpecifier sort;
     private final String sortType;
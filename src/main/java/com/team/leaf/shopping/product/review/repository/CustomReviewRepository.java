@@ -4,6 +4,7 @@ import com.team.leaf.shopping.product.review.dto.ReviewResponse;
 import com.team.leaf.shopping.product.review.entity.Review;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CustomReviewRepository {
 
@@ -11,4 +12,6 @@ public interface CustomReviewRepository {
 
     List<ReviewResponse> findReviewByUserId(long userId);
 
+    Optional<Review> findReviewForUpdate(long reviewId);
+
 }
@@ -3,7 +3,9 @@ package com.team.leaf.shopping.product.review.repository;
 import com.querydsl.core.types.Projections;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import com.team.leaf.shopping.product.review.dto.ReviewResponse;
+import com.team.leaf.shopping.product.review.entity.Review;
 import com.team.leaf.user.account.entity.QAccountDetail;
+import jakarta.persistence.LockModeType;
 import lombok.RequiredArgsConstructor;
 
 import static com.team.leaf.user.account.entity.QAccountDetail.accountDetail;
@@ -11,6 +13,7 @@ import static com.team.leaf.shopping.product.review.entity.QReview.review;
 import static com.team.leaf.shopping.product.product.entity.QProduct.product;
 
 import java.util.List;
+import java.util.Optional;
 
 @RequiredArgsConstructor
 public class ReviewRepositoryImpl implements CustomReviewRepository {
@@ -51,4 +54,15 @@ public class ReviewRepositoryImpl implements CustomReviewRepository {
                 .innerJoin(review.writer, accountDetail2)
                 .fetch();
     }
+
+    // 수정, 삭제하는 동안 같은 리뷰를 다른 요청이 바꾸지 못하도록 행을 잠근다 ( 이전 점수로 상품 리뷰 집계를 고친다 )
+    @Override
+    public Optional<Review> findReviewForUpdate(long reviewId) {
+        Review result = jpaQueryFactory.selectFrom(review)
+                .where(review.reviewId.eq(reviewId))
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .fetchOne();
+
+        return Optional.ofNullable(result);
+    }
 }
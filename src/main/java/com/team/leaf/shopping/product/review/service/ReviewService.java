@@ -1,7 +1,9 @@
 package com.team.leaf.shopping.product.review.service;
 
+import com.team.leaf.common.util.AfterCommit;
 import com.team.leaf.shopping.product.product.entity.Product;
 import com.team.leaf.shopping.product.product.repository.ProductRepository;
+import com.team.leaf.shopping.product.product.util.ProductRanking;
 import com.team.leaf.shopping.product.review.dto.GetReviewRes;
 import com.team.leaf.shopping.product.review.dto.ModifyReviewReq;
 import com.team.leaf.shopping.product.review.dto.PostReviewReq;
@@ -10,6 +12,7 @@ import com.team.leaf.shopping.product.review.entity.Review;
 import com.team.leaf.shopping.product.review.repository.ReviewRepository;
 import com.team.leaf.user.account.entity.AccountDetail;
 import com.team.leaf.user.account.repository.AccountRepository;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -25,6 +28,7 @@ public class ReviewService {
     private final ReviewRepository reviewRepository;
     private final AccountRepository accountRepository;
     private final ProductRepository productRepository;
+    private final ProductRanking productRanking;
 
     public List<ReviewResponse> findReviewByProductId(long productId) {
         return reviewRepository.findReviewByProductId(productId);
@@ -34,6 +38,7 @@ public class ReviewService {
         return reviewRepository.findReviewByUserId(userId);
     }
 
+    @Transactional
     public String postReview(AccountDetail account, PostReviewReq request) {
         AccountDetail accountDetail1 = accountRepository.findById(account.getUserId())
                 .orElseThrow(()  -> new RuntimeException("사용자를 찾을 수 없습니다."));
@@ -51,13 +56,16 @@ public class ReviewService {
                 .qualityRating(request.getQualityRating())
                 .build();
 
+        // 상품 행을 먼저 잠가 집계 보정 작업이 저장 중인 리뷰를 빠뜨리지 않게 한다
+        addReviewScore(product.getProductId(), review.getScore(), 1);
         reviewRepository.save(review);
 
         return "Success post review";
     }
 
+    @Transactional
     public String modifyReview(AccountDetail account, ModifyReviewReq request){
-        Review review = reviewRepository.findById(request.getReviewId()).orElse(null);
+        Review review = reviewRepository.findReviewForUpdate(request.getReviewId()).orElse(null);
 
         if(review == null) {
             throw new RuntimeException("리뷰를 찾을 수 없습니다.");
@@ -73,6 +81,10 @@ public class ReviewService {
 
             if(score != null) {
                 review.setScore(request.getScore());
+
+                if(request.getScore() != score) {
+                    addReviewScore(review.getProduct().getProductId(), request.getScore() - score, 0);
+                }
             }
             if(request.getContent() != null && !request.getContent().isEmpty()) {
                 review.setContent(request.getContent());
@@ -93,8 +105,9 @@ public class ReviewService {
         return "Success modify review";
     }
 
+    @Transactional
     public String deleteReview(AccountDetail account, Long reviewId) {
-        Review review = reviewRepository.findById(reviewId).orElse(null);
+        Review review = reviewRepository.findReviewForUpdate(reviewId).orElse(null);
 
         if(review == null) {
             throw new RuntimeException("리뷰를 찾을 수 없습니다.");
@@ -106,12 +119,29 @@ public class ReviewService {
         if(accountDetail1.getUserId() != review.getWriter().getUserId()) {
             throw new RuntimeException("본인이 작성한 리뷰만 삭제할 수 있습니다.");
         } else {
+            addReviewScore(review.getProduct().getProductId(), -review.getScore(), -1);
             reviewRepository.deleteById(review.getReviewId());
         }
 
         return "Success delete review";
     }
 
+    // 상품의 리뷰 집계를 바꾸고, 커밋되면 평점순 순위에도 반영한다
+    private void addReviewScore(long productId, long scoreDelta, long countDelta) {
+        productRepository.addReviewScore(productId, scoreDelta, countDelta);
+
+        AfterCommit.run(() -> productRanking.addReviewScore(productId, scoreDelta, countDelta));
+    }
+
+    // 리뷰 테이블에서 상품의 리뷰 집계를 다시 계산하고, 커밋되면 평점순 순위도 다시 계산한 값으로 맞춘다
+    @Transactional
+    public void recalculateReviewStatistics(long productId) {
+        productRepository.recalculateReviewStatistics(productId);
+
+        productRepository.findProductRankingKey(productId).ifPresent(key ->
+                AfterCommit.run(() -> productRanking.setReviewScore(productId, key.getReviewScoreSum(), key.getReviewCount())));
+    }
+
     public List<GetReviewRes> getReviewsById(AccountDetail account) {
         AccountDetail accountDetail1 = accountRepository.findById(account.getUserId())
                 .orElseThrow(()  -> new RuntimeException("사용자를 찾을 수 없습니다."));
@@ -0,0 +1,41 @@
+package com.team.leaf.shopping.product.review.util;
+
+import com.team.leaf.shopping.product.product.repository.ProductRepository;
+import com.team.leaf.shopping.product.review.service.ReviewService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/*
+ * 상품에 저장한 리뷰 집계 ( 점수 합계, 개수, 평균 ) 를 리뷰 테이블과 비교해 맞춘다.
+ * 리뷰를 쓸 때마다 증가분으로 갱신하므로, 직접 수정한 데이터나 컬럼 추가 직후의 값처럼 어긋난 상품만 다시 계산한다.
+ * 시작할 때 한 번 실행된다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReviewStatisticsReconciler {
+
+    private final ProductRepository productRepository;
+    private final ReviewService reviewService;
+
+    @Scheduled(fixedDelayString = "${product.review-statistics.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        List<Long> productIds = productRepository.findReviewStatisticsDriftProductIds();
+
+        for(Long productId : productIds) {
+            try {
+                reviewService.recalculateReviewStatistics(productId);
+            } catch (RuntimeException e) {
+                log.error("리뷰 집계 보정 실패 : {}", e.getMessage());
+            }
+        }
+
+        if(!productIds.isEmpty()) {
+            log.info("리뷰 집계 보정 : {}", productIds.size());
+        }
+    }
+}
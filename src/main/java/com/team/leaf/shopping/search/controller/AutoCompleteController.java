@@ -1,5 +1,6 @@
 package com.team.leaf.shopping.search.controller;
 
+import com.team.leaf.shopping.search.dto.AutoCompleteCacheStats;
 import com.team.leaf.shopping.search.dto.AutoCompleteRequest;
 import com.team.leaf.shopping.search.dto.UtilInitDto;
 import com.team.leaf.shopping.search.service.AutoCompleteService;
@@ -28,9 +29,26 @@ public class AutoCompleteController {
     }
 
     @GetMapping
-    @Operation(summary = "빈도수를 기반으로 자동 검색 탐색")
-    public ApiResponse findSearchComplete(@RequestParam String word) {
-        List<UtilInitDto> result = autoCompleteService.findSearchComplete(word);
+    @Operation(summary = "빈도수를 기반으로 자동 검색 탐색 ( typo : 허용할 오타 자모 수, 최대 2 / trending : 최근 검색 순으로 정렬 )")
+    public ApiResponse findSearchComplete(@RequestParam String word, @RequestParam(defaultValue = "0") int typo,
+                                          @RequestParam(defaultValue = "false") boolean trending) {
+        List<UtilInitDto> result = autoCompleteService.findSearchComplete(word, typo, trending);
+
+        return new ApiResponse(result);
+    }
+
+    @GetMapping("/trending")
+    @Operation(summary = "최근 인기 검색어")
+    public ApiResponse findTrending() {
+        List<UtilInitDto> result = autoCompleteService.findTrending();
+
+        return new ApiResponse(result);
+    }
+
+    @GetMapping("/cache-stats")
+    @Operation(summary = "자동 완성 캐시 적중률 / 제거 수 조회")
+    public ApiResponse findCacheStats() {
+        AutoCompleteCacheStats result = autoCompleteService.findCacheStats();
 
         return new ApiResponse(result);
     }
@@ -0,0 +1,18 @@
+package com.team.leaf.shopping.search.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class AutoCompleteCacheStats {
+
+    private int size;
+    private int maxSize;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private long invalidationCount;
+
+}
@@ -2,13 +2,25 @@ package com.team.leaf.shopping.search.entity;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Entity
+// 빈도수 반영은 word 중복 키로 insert / update 를 한 번에 처리하므로 word 는 유일해야 한다
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_auto_complete_word", columnNames = "word")
+}, indexes = {
+        @Index(name = "idx_auto_complete_modified_date", columnList = "modifiedDate")
+})
 @Getter
 @Builder
 @AllArgsConstructor
@@ -16,21 +28,34 @@ import lombok.NoArgsConstructor;
 public class AutoComplete {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long autoCompleteId;
 
     private String word;
 
     private int frequency;
 
+    // 트라이 스냅샷 이후 변경된 단어만 다시 읽기 위한 마지막 변경 시각
+    private LocalDateTime modifiedDate;
+
     public static AutoComplete createAutoComplete(String word) {
         return AutoComplete.builder()
                 .word(word)
                 .frequency(0)
+                .modifiedDate(LocalDateTime.now())
+                .build();
+    }
+
+    public static AutoComplete createAutoComplete(String word, int frequency) {
+        return AutoComplete.builder()
+                .word(word)
+                .frequency(frequency)
+                .modifiedDate(LocalDateTime.now())
                 .build();
     }
 
     public void increaseFrequency(int i) {
         this.frequency += i;
+        this.modifiedDate = LocalDateTime.now();
     }
 }
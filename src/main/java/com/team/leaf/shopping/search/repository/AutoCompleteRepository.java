@@ -3,10 +3,14 @@ package com.team.leaf.shopping.search.repository;
 import com.team.leaf.shopping.search.entity.AutoComplete;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
-public interface AutoCompleteRepository extends JpaRepository<AutoComplete, Long> {
+public interface AutoCompleteRepository extends JpaRepository<AutoComplete, Long>, CustomAutoCompleteRepository {
 
     Optional<AutoComplete> findAutoCompleteByWord(String word);
 
+    List<AutoComplete> findAllByModifiedDateGreaterThanEqual(LocalDateTime modifiedDate);
+
 }
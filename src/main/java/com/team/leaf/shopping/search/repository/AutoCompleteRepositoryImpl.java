@@ -0,0 +1,36 @@
+package com.team.leaf.shopping.search.repository;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class AutoCompleteRepositoryImpl implements CustomAutoCompleteRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /*
+     * 다른 서버의 반영과 겹쳐도 값을 잃지 않도록 읽지 않고 컬럼 값에 더하고, 없는 단어는 같은 문장에서 추가한다. ( uk_auto_complete_word )
+     * 배치 전체를 한 트랜잭션으로 묶어 일부만 반영된 채로 실패하지 않게 한다. 실패하면 호출한 쪽이 전부 다시 시도한다
+     */
+    @Override
+    @Transactional
+    public void increaseFrequencies(Map<String, Long> frequencies) {
+        List<Object[]> parameters = new ArrayList<>(frequencies.size());
+        LocalDateTime modifiedDate = LocalDateTime.now();
+
+        for(Map.Entry<String, Long> entry : frequencies.entrySet()) {
+            parameters.add(new Object[]{entry.getKey(), entry.getValue(), modifiedDate});
+        }
+
+        jdbcTemplate.batchUpdate(
+                "insert into auto_complete (word, frequency, modified_date) values (?, ?, ?) " +
+                        "on duplicate key update frequency = frequency + values(frequency), modified_date = values(modified_date)",
+                parameters);
+    }
+}
@@ -0,0 +1,10 @@
+package com.team.leaf.shopping.search.repository;
+
+import java.util.Map;
+
+public interface CustomAutoCompleteRepository {
+
+    // 단어별 빈도수 증가분을 한 번의 배치로 반영한다. 테이블에 없는 단어는 증가분을 빈도수로 추가한다
+    void increaseFrequencies(Map<String, Long> frequencies);
+
+}
@@ -1,11 +1,14 @@
 package com.team.leaf.shopping.search.service;
 
+import com.team.leaf.shopping.search.dto.AutoCompleteCacheStats;
 import com.team.leaf.shopping.search.dto.AutoCompleteRequest;
 import com.team.leaf.shopping.search.dto.UtilInitDto;
+import com.team.leaf.shopping.search.util.AutoCompleteCache;
+import com.team.leaf.shopping.search.util.ChosungIndex;
+import com.team.leaf.shopping.search.util.TrendingTerms;
 import com.team.leaf.shopping.search.util.Trie;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -14,13 +17,55 @@ import java.util.List;
 public class AutoCompleteService {
 
     private final Trie trie;
+    private final ChosungIndex chosungIndex;
+    private final TrendingTerms trendingTerms;
+    private final AutoCompleteCache autoCompleteCache;
 
-    @Transactional
     public void addSearchWord(AutoCompleteRequest request) {
         trie.insert(request.getWord());
     }
 
+    // 오타 허용 검색의 최대 자모 편집 거리
+    private static final int MAX_TYPO = 2;
+
     public List<UtilInitDto> findSearchComplete(String word) {
+        return findSearchComplete(word, 0, false);
+    }
+
+    public List<UtilInitDto> findSearchComplete(String word, int typo, boolean trending) {
+        // 접두사 검색 결과만 캐시한다. 오타 허용 검색과 최근 검색 순위는 다른 단어의 변경에도 바뀐다
+        if(typo <= 0 && !trending) {
+            return autoCompleteCache.get(AutoCompleteCache.keyOf(word), () -> findCandidates(word, 0));
+        }
+
+        List<UtilInitDto> result = findCandidates(word, typo);
+
+        // 누적 빈도 대신 최근 검색 점수로 정렬한다
+        if(trending) {
+            return trendingTerms.rank(word, result, trie.getTopK());
+        }
+
+        return result;
+    }
+
+    public List<UtilInitDto> findTrending() {
+        return trendingTerms.getTrending();
+    }
+
+    public AutoCompleteCacheStats findCacheStats() {
+        return autoCompleteCache.getStats();
+    }
+
+    private List<UtilInitDto> findCandidates(String word, int typo) {
+        // 초성만 입력한 경우 ( ㄸㄱㅋㅇㅋ ) 초성 색인에서 찾는다
+        if(ChosungIndex.isChosung(word)) {
+            return chosungIndex.searchComplete(word);
+        }
+
+        if(typo > 0) {
+            return trie.searchFuzzyComplete(word, Math.min(typo, MAX_TYPO));
+        }
+
         return trie.searchComplete(word);
     }
 }
@@ -0,0 +1,174 @@
+package com.team.leaf.shopping.search.util;
+
+import com.team.leaf.shopping.search.dto.AutoCompleteCacheStats;
+import com.team.leaf.shopping.search.dto.UtilInitDto;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+ * 접두사별 자동 완성 결과 캐시
+ * 키는 트라이 간선 문자( 자모 분리, 소문자 ) 로 정규화한 접두사이고, 세그먼트마다 LRU 로 제거한다.
+ * 단어의 빈도수가 바뀌면 그 단어의 접두사 키만 지운다.
+ */
+@Component
+public class AutoCompleteCache {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    // 자모 트라이 키와 초성 색인 키가 겹치지 않도록 앞에 붙인다
+    private static final char TRIE_KEY = 'T';
+    private static final char CHOSUNG_KEY = 'C';
+
+    @Value("${auto-complete.cache.max-size:10000}")
+    private int maxSize = 10000;
+
+    private Segment[] segments;
+
+    // 무효화할 때마다 증가한다. 계산을 시작한 뒤 바뀌었으면 이전 트라이로 만든 결과일 수 있으므로 저장하지 않는다
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder invalidationCount = new LongAdder();
+
+    private class Segment extends LinkedHashMap<String, List<UtilInitDto>> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<UtilInitDto>> eldest) {
+            if(size() > capacity) {
+                evictionCount.increment();
+                return true;
+            }
+
+            return false;
+        }
+    }
+
+    @PostConstruct
+    void createSegments() {
+        segments = new Segment[SEGMENT_COUNT];
+
+        for(int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(Math.max(1, maxSize / SEGMENT_COUNT));
+        }
+    }
+
+    private Segment segmentOf(String key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+    public static String keyOf(String word) {
+        if(ChosungIndex.isChosung(word)) {
+            TriePath path = ChosungIndex.chosungPath(word);
+            return keyOf(CHOSUNG_KEY, path, path.length);
+        }
+
+        TriePath path = TriePath.of(word);
+        return keyOf(TRIE_KEY, path, path.length);
+    }
+
+    // path 의 앞 length 개 간선으로 만든 키
+    private static String keyOf(char type, TriePath path, int length) {
+        StringBuilder key = new StringBuilder(length + 1);
+        key.append(type);
+        key.append(path.keys, 0, length);
+
+        return key.toString();
+    }
+
+    public List<UtilInitDto> get(String key, Supplier<List<UtilInitDto>> loader) {
+        Segment segment = segmentOf(key);
+        List<UtilInitDto> result;
+
+        synchronized (segment) {
+            result = segment.get(key);
+        }
+
+        if(result != null) {
+            hitCount.increment();
+            return result;
+        }
+
+        missCount.increment();
+
+        long before = generation.get();
+        result = Collections.unmodifiableList(loader.get());
+
+        synchronized (segment) {
+            if(generation.get() == before) {
+                segment.put(key, result);
+            }
+        }
+
+        return result;
+    }
+
+    // word 의 모든 접두사 ( 글자 중간의 초성, 받침 없는 글자 포함 ) 와 초성 접두사를 지운다
+    public void invalidate(String word) {
+        generation.incrementAndGet();
+
+        TriePath path = TriePath.of(word);
+        for(int i = 0; i <= path.length; i++) {
+            remove(keyOf(TRIE_KEY, path, i));
+        }
+
+        TriePath chosung = ChosungIndex.chosungPath(word);
+        for(int i = 0; i <= chosung.length; i++) {
+            remove(keyOf(CHOSUNG_KEY, chosung, i));
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+
+        for(Segment segment : segments) {
+            synchronized (segment) {
+                invalidationCount.add(segment.size());
+                segment.clear();
+            }
+        }
+    }
+
+    private void remove(String key) {
+        Segment segment = segmentOf(key);
+
+        synchronized (segment) {
+            if(segment.remove(key) != null) {
+                invalidationCount.increment();
+            }
+        }
+    }
+
+    public AutoCompleteCacheStats getStats() {
+        int size = 0;
+
+        for(Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+
+        long hit = hitCount.sum();
+        long miss = missCount.sum();
+        double hitRate = hit + miss == 0 ? 0 : (double) hit / (hit + miss);
+
+        return new AutoCompleteCacheStats(size, maxSize, hit, miss, hitRate, evictionCount.sum(), invalidationCount.sum());
+    }
+}
@@ -0,0 +1,100 @@
+package com.team.leaf.shopping.search.util;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * 이 노드에서 바뀐 단어를 모아 다른 노드로 보낸다.
+ * 같은 단어의 변경은 하나로 합치고, 묶음마다 INCRBY 로 연속된 순번을 받아
+ * 순번 로그( ZSET, score = 순번 ) 에 남긴 뒤 채널로 발행한다.
+ * 메시지를 놓친 노드는 순번 로그에서 다시 읽는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AutoCompleteDeltaPublisher {
+
+    public static final String CHANNEL = "auto-complete:delta";
+    static final String SEQUENCE_KEY = "auto-complete:delta:sequence";
+    static final String LOG_KEY = "auto-complete:delta:log";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    // 자기 변경을 다시 반영하지 않기 위한 노드 구분자
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // 순번 로그에 남길 최근 변경 수
+    @Value("${auto-complete.sync.log-size:100000}")
+    private long logSize = 100000;
+
+    private final Map<String, TrieDelta> pendingDeltas = new ConcurrentHashMap<>();
+
+    String getNodeId() {
+        return nodeId;
+    }
+
+    // 검색 한 번을 증가분 1 로 모은다
+    void publish(String word) {
+        // 한 줄에 변경 하나를 쓰므로 줄바꿈이 있는 단어는 이 노드에만 반영한다
+        if(word.indexOf('\n') >= 0) {
+            return;
+        }
+
+        pendingDeltas.merge(word, new TrieDelta(0, nodeId, word, 1), TrieDelta::merge);
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${auto-complete.sync.flush-interval-ms:200}")
+    public void flush() {
+        List<TrieDelta> deltas = new ArrayList<>();
+
+        for(String word : pendingDeltas.keySet()) {
+            TrieDelta delta = pendingDeltas.remove(word);
+
+            if(delta != null) {
+                deltas.add(delta);
+            }
+        }
+
+        if(deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            long last = redisTemplate.opsForValue().increment(SEQUENCE_KEY, deltas.size());
+            long sequence = last - deltas.size() + 1;
+
+            Set<ZSetOperations.TypedTuple<Object>> entries = new HashSet<>();
+            StringBuilder message = new StringBuilder();
+
+            for(TrieDelta delta : deltas) {
+                String line = delta.withSequence(sequence).encode();
+
+                entries.add(new DefaultTypedTuple<>(line, (double) sequence));
+                message.append(line).append('\n');
+                sequence++;
+            }
+
+            redisTemplate.opsForZSet().add(LOG_KEY, entries);
+            redisTemplate.opsForZSet().removeRange(LOG_KEY, 0, -logSize - 1);
+            redisTemplate.convertAndSend(CHANNEL, message.toString());
+        } catch (RuntimeException e) {
+            log.error("Failed to publish auto complete delta : {}", e.getMessage());
+
+            // 다음 주기에 다시 보낸다
+            for(TrieDelta delta : deltas) {
+                pendingDeltas.merge(delta.word, delta, TrieDelta::merge);
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.team.leaf.shopping.search.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/*
+ * 다른 노드에서 발행한 트라이 변경을 받아 묶음으로 반영한다.
+ * 순번은 마지막으로 반영한 순번부터 빈틈없이 이어지는 곳까지만 반영하고, 그 뒤의 변경은 빈 순번이 채워질 때까지 모아 둔다.
+ * 빈 순번은 순번 로그에서 다시 읽고, 제한 시간이 지나도 채워지지 않거나 로그가 이미 잘려 나갔으면 트라이를 다시 만든다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AutoCompleteDeltaSubscriber implements MessageListener {
+
+    private final Trie trie;
+    private final AutoCompleteDeltaPublisher publisher;
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${auto-complete.sync.log-size:100000}")
+    private long logSize = 100000;
+
+    /*
+     * 다른 노드가 순번을 받은 뒤 로그에 남기기 전이면 잠시 비어 있을 수 있어 바로 다시 만들지 않고 기다린다.
+     * 로그에 남기지 못한 순번은 다시 채워지지 않으므로 이 시간이 지나면 트라이를 다시 만든다
+     */
+    @Value("${auto-complete.sync.gap-timeout-ms:10000}")
+    private long gapTimeoutMs = 10000;
+
+    // 아래 필드는 이 객체의 락 안에서만 읽고 쓴다
+    private long appliedSequence;
+    private boolean initialized;
+
+    // 빈 순번 뒤에 받은 변경 ( 순번 오름차순 )
+    private final TreeMap<Long, TrieDelta> waitingDeltas = new TreeMap<>();
+
+    // 빈 순번을 처음 발견한 시각 ( 없으면 0 )
+    private long gapSince;
+
+    /*
+     * 트라이를 만들기 전의 순번부터 이어서 반영한다. 변경은 증가분이라 순번으로 한 번씩만 반영한다.
+     * DB 반영 주기( auto-complete.flush-interval-ms ) 안의 증가분은 DB 와 변경 양쪽에 있거나 없을 수 있어 그만큼 차이가 날 수 있다.
+     */
+    public synchronized void initTrie() {
+        rebuild();
+        initialized = true;
+
+        catchUp();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+
+        receive(decode(List.of(body.split("\n"))));
+    }
+
+    private synchronized void receive(List<TrieDelta> deltas) {
+        if(!initialized || deltas.isEmpty()) {
+            return;
+        }
+
+        applyContiguous(deltas);
+
+        // 앞선 메시지를 놓쳤거나 아직 로그에 남지 않았으면 로그에서 빈 순번을 찾는다
+        if(!waitingDeltas.isEmpty()) {
+            catchUp();
+        } else {
+            gapSince = 0;
+        }
+    }
+
+    // 발행이 끊겨 마지막 메시지를 놓친 경우를 위해 주기적으로 순번을 확인한다
+    @Scheduled(fixedDelayString = "${auto-complete.sync.check-interval-ms:30000}")
+    public synchronized void checkSequence() {
+        if(initialized && currentSequence() > appliedSequence) {
+            catchUp();
+        }
+    }
+
+    // 빈 순번이 남아 있으면 새 메시지가 오지 않아도 다시 확인하고, 제한 시간이 지났으면 트라이를 다시 만든다
+    @Scheduled(fixedDelayString = "${auto-complete.sync.gap-retry-ms:1000}")
+    public synchronized void retryGap() {
+        if(initialized && gapSince != 0) {
+            catchUp();
+        }
+    }
+
+    private void catchUp() {
+        try {
+            Set<Object> lines = redisTemplate.opsForZSet().rangeByScore(AutoCompleteDeltaPublisher.LOG_KEY, appliedSequence + 1, Double.POSITIVE_INFINITY);
+            List<TrieDelta> deltas = decode(lines == null ? List.of() : lines);
+
+            if(isTruncated(deltas)) {
+                log.warn("Auto complete delta log is truncated after sequence {}, rebuilding trie", appliedSequence);
+                rebuild();
+                return;
+            }
+
+            applyContiguous(deltas);
+            checkGap(!waitingDeltas.isEmpty() || currentSequence() > appliedSequence);
+        } catch (RuntimeException e) {
+            log.error("Failed to catch up auto complete delta : {}", e.getMessage());
+        }
+    }
+
+    private void checkGap(boolean gap) {
+        if(!gap) {
+            gapSince = 0;
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+
+        if(gapSince == 0) {
+            gapSince = now;
+        } else if(now - gapSince >= gapTimeoutMs) {
+            log.warn("Auto complete delta sequence {} is missing for {} ms, rebuilding trie", appliedSequence + 1, now - gapSince);
+            rebuild();
+        }
+    }
+
+    // 트라이를 만들기 전의 순번부터 이어서 반영하고, 그보다 앞선 변경은 버린다
+    private void rebuild() {
+        long sequence = currentSequence();
+
+        trie.initTrie();
+        appliedSequence = sequence;
+        gapSince = 0;
+
+        applyContiguous(List.of());
+    }
+
+    // 다음 순번이 로그에 없고 로그가 가득 찼으면 필요한 변경이 잘려 나간 것이다
+    private boolean isTruncated(List<TrieDelta> deltas) {
+        if(deltas.isEmpty() || deltas.get(0).sequence == appliedSequence + 1) {
+            return false;
+        }
+
+        Long size = redisTemplate.opsForZSet().zCard(AutoCompleteDeltaPublisher.LOG_KEY);
+
+        return size != null && size >= logSize;
+    }
+
+    // 받은 변경을 모아 둔 변경과 합친 뒤 마지막 순번부터 빈틈없이 이어지는 곳까지만 반영한다
+    private void applyContiguous(List<TrieDelta> deltas) {
+        for(TrieDelta delta : deltas) {
+            if(delta.sequence > appliedSequence) {
+                waitingDeltas.put(delta.sequence, delta);
+            }
+        }
+
+        waitingDeltas.headMap(appliedSequence, true).clear();
+
+        List<TrieDelta> remote = new ArrayList<>();
+
+        while(!waitingDeltas.isEmpty() && waitingDeltas.firstKey() == appliedSequence + 1) {
+            TrieDelta delta = waitingDeltas.pollFirstEntry().getValue();
+
+            if(!delta.nodeId.equals(publisher.getNodeId())) {
+                remote.add(delta);
+            }
+
+            appliedSequence = delta.sequence;
+        }
+
+        trie.applyRemote(remote);
+    }
+
+    private long currentSequence() {
+        try {
+            Object sequence = redisTemplate.opsForValue().get(AutoCompleteDeltaPublisher.SEQUENCE_KEY);
+
+            return sequence == null ? 0 : Long.parseLong(sequence.toString());
+        } catch (RuntimeException e) {
+            log.error("Failed to read auto complete delta sequence : {}", e.getMessage());
+            return appliedSequence;
+        }
+    }
+
+    // 순번 순서로 정렬된 변경. 읽을 수 없는 줄은 건너뛴다
+    private static List<TrieDelta> decode(Collection<?> lines) {
+        List<TrieDelta> deltas = new ArrayList<>(lines.size());
+
+        for(Object line : lines) {
+            TrieDelta delta = line == null ? null : TrieDelta.decode(line.toString());
+
+            if(delta != null) {
+                deltas.add(delta);
+            }
+        }
+
+        deltas.sort((o1, o2) -> Long.compare(o1.sequence, o2.sequence));
+
+        return deltas;
+    }
+}
@@ -0,0 +1,66 @@
+package com.team.leaf.shopping.search.util;
+
+import com.team.leaf.shopping.search.repository.AutoCompleteRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * 검색어 빈도수 증가분을 메모리에 모아 두었다가 주기적으로 auto_complete 테이블에 한 번에 반영한다.
+ * 서버가 비정상 종료되면 마지막 반영 이후의 증가분만 잃는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AutoCompleteFrequencyBuffer {
+
+    private final AutoCompleteRepository autoCompleteRepository;
+
+    /*
+     * merge / remove 는 ConcurrentHashMap 의 버킷 단위 락으로 처리되어 단어별로 경합이 나뉜다.
+     * LongAdder 는 반영 중인 값을 꺼내는 순간과 증가가 겹치면 증가분을 잃을 수 있어 사용하지 않는다.
+     */
+    private final ConcurrentHashMap<String, Long> frequencies = new ConcurrentHashMap<>();
+
+    public void increase(String word) {
+        frequencies.merge(word, 1L, Long::sum);
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${auto-complete.flush-interval-ms:5000}")
+    public void flush() {
+        if(frequencies.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> drained = new HashMap<>();
+
+        for(String word : frequencies.keySet()) {
+            Long frequency = frequencies.remove(word);
+
+            if(frequency != null) {
+                drained.put(word, frequency);
+            }
+        }
+
+        try {
+            autoCompleteRepository.increaseFrequencies(drained);
+        } catch (RuntimeException e) {
+            // 배치는 한 트랜잭션이라 전부 롤백되었으므로 증가분 전체를 다음 주기에 다시 시도한다
+            restore(drained);
+            log.error("Failed to flush auto complete frequencies : {}", e.getMessage());
+        }
+    }
+
+    private void restore(Map<String, Long> drained) {
+        for(Map.Entry<String, Long> entry : drained.entrySet()) {
+            frequencies.merge(entry.getKey(), entry.getValue(), Long::sum);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.team.leaf.shopping.search.util;
+
+import com.team.leaf.shopping.search.dto.UtilInitDto;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * 초성 자동 완성 색인 ( ㄸㄱㅋㅇㅋ -> 딸기 케이크 )
+ * 단어의 각 글자를 초성으로 바꾸고 공백을 뺀 경로로 저장한다. 한글이 아닌 문자는 소문자로 그대로 둔다.
+ * 초성이 같은 단어 ( 사과, 수건 ) 가 한 노드에 겹치지 않도록 경로 뒤에 구분 문자와 원래 단어를 붙인다.
+ * 단어와 빈도수는 Trie 가 반영할 때 함께 받는다.
+ */
+@Component
+public class ChosungIndex {
+
+    // 검색어에는 나올 수 없는 문자
+    private static final char WORD_SEPARATOR = 0;
+
+    @Value("${auto-complete.top-k:10}")
+    private int topK = 10;
+
+    private CompletionTrie completionTrie;
+
+    @PostConstruct
+    void createCompletionTrie() {
+        completionTrie = new CompletionTrie(topK);
+    }
+
+    // 공백을 제외한 모든 문자가 자음이면 초성 검색어로 본다
+    public static boolean isChosung(String word) {
+        boolean containsConsonant = false;
+
+        for(int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+
+            if(Character.isWhitespace(c)) {
+                continue;
+            }
+
+            if(!GraphemeSeparation.isConsonant(c)) {
+                return false;
+            }
+
+            containsConsonant = true;
+        }
+
+        return containsConsonant;
+    }
+
+    void rebuild(List<Completion> completions) {
+        List<CompletionTrie.TrieUpdate> updates = new ArrayList<>(completions.size());
+
+        for(Completion completion : completions) {
+            updates.add(toUpdate(completion));
+        }
+
+        completionTrie.rebuild(new Node((char) 0), updates);
+    }
+
+    void update(Completion completion) {
+        completionTrie.update(toUpdate(completion));
+    }
+
+    void updateAll(List<Completion> completions) {
+        List<CompletionTrie.TrieUpdate> updates = new ArrayList<>(completions.size());
+
+        for(Completion completion : completions) {
+            updates.add(toUpdate(completion));
+        }
+
+        completionTrie.updateAll(updates);
+    }
+
+    public List<UtilInitDto> searchComplete(String searchWord) {
+        return Trie.toResponse(completionTrie.find(chosungPath(searchWord)));
+    }
+
+    private static CompletionTrie.TrieUpdate toUpdate(Completion completion) {
+        String word = completion.word;
+        TriePath path = chosungPath(word, word.length() * 2 + 1);
+
+        path.add(WORD_SEPARATOR, WORD_SEPARATOR);
+        for(int i = 0; i < word.length(); i++) {
+            path.add(word.charAt(i), word.charAt(i));
+        }
+
+        return new CompletionTrie.TrieUpdate(path, word, completion.frequency, false);
+    }
+
+    static TriePath chosungPath(String word) {
+        return chosungPath(word, word.length());
+    }
+
+    private static TriePath chosungPath(String word, int capacity) {
+        TriePath path = new TriePath(capacity);
+
+        for(int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+
+            if(Character.isWhitespace(c)) {
+                continue;
+            }
+
+            char key = Character.toLowerCase(GraphemeSeparation.initialOf(c));
+            path.add(key, key);
+        }
+
+        return path;
+    }
+}
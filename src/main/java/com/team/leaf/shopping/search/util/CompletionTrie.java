@@ -0,0 +1,242 @@
+package com.team.leaf.shopping.search.util;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * 노드마다 상위 K 단어를 들고 있는 자동 완성 트라이
+ * 읽기 스레드는 락 없이 공개된 루트에서 시작하는 불변 스냅샷을 탐색하고,
+ * 쓰기 스레드는 변경할 경로만 복사해서 고친 뒤 루트를 한 번에 교체한다.
+ * 자모 트라이( Trie ) 와 초성 색인( ChosungIndex ) 이 함께 사용한다.
+ */
+class CompletionTrie {
+
+    private volatile Node rootNode = new Node((char) 0);
+
+    // 반영 대기 중인 변경. 쓰기 락을 얻은 스레드가 모아서 한 번에 공개한다
+    private final Queue<TrieUpdate> pendingUpdates = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final int topK;
+
+    static class TrieUpdate {
+        final TriePath path;
+        // null 이면 간선의 원본 문자로 단어를 만든다
+        final String word;
+        final int frequency;
+        // true 이면 frequency 만큼 증가, false 이면 frequency 로 설정
+        final boolean increment;
+        // 쓰기 락 안에서만 읽고 쓴다
+        boolean applied;
+        Node node;
+
+        TrieUpdate(TriePath path, String word, int frequency, boolean increment) {
+            this.path = path;
+            this.word = word;
+            this.frequency = frequency;
+            this.increment = increment;
+        }
+    }
+
+    // 쓰기 락 안에서 한 배치를 반영하는 동안만 사용한다
+    private static class TrieBatch {
+        // 이번 배치에서 만든 노드는 아직 공개되지 않았으므로 바로 수정할 수 있다
+        private final Set<Node> unpublishedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        // 새 루트를 처음부터 만드는 경우 모든 노드가 비공개이다
+        private final boolean rebuild;
+
+        TrieBatch(boolean rebuild) {
+            this.rebuild = rebuild;
+        }
+
+        Node create(char label) {
+            Node node = new Node(label);
+
+            if(!rebuild) {
+                unpublishedNodes.add(node);
+            }
+
+            return node;
+        }
+
+        Node writable(Node node) {
+            if(rebuild || unpublishedNodes.contains(node)) {
+                return node;
+            }
+
+            Node copy = node.copy();
+            unpublishedNodes.add(copy);
+
+            return copy;
+        }
+    }
+
+    CompletionTrie(int topK) {
+        this.topK = topK;
+    }
+
+    Node getRoot() {
+        return rootNode;
+    }
+
+    int getTopK() {
+        return topK;
+    }
+
+    // 접두사 경로의 마지막 노드, 없으면 null
+    Node find(TriePath path) {
+        Node node = this.rootNode;
+
+        for(int i = 0; i < path.length && node != null; i++) {
+            node = node.getChild(path.keys[i]);
+        }
+
+        return node;
+    }
+
+    // 아직 공개되지 않은 root 에 변경을 바로 반영한 뒤 공개한다
+    void rebuild(Node root, Iterable<TrieUpdate> updates) {
+        writeLock.lock();
+        try {
+            TrieBatch batch = new TrieBatch(true);
+
+            for(TrieUpdate update : updates) {
+                apply(root, update, batch);
+            }
+
+            rootNode = root;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /*
+     * 변경을 대기열에 넣고 쓰기 락을 얻는다.
+     * 락을 기다리는 동안 다른 쓰기 스레드가 대기열을 비우며 함께 반영했을 수 있다.
+     * 락을 얻은 스레드는 쌓인 변경을 모두 새 경로에 반영하고 루트를 한 번만 교체한다.
+     */
+    Node update(TrieUpdate update) {
+        updateAll(List.of(update));
+
+        return update.node;
+    }
+
+    // 여러 변경을 한 번에 반영한다. 다른 노드에서 받은 변경처럼 묶음으로 들어오는 경우 루트를 한 번만 교체한다
+    void updateAll(List<TrieUpdate> updates) {
+        if(updates.isEmpty()) {
+            return;
+        }
+
+        pendingUpdates.addAll(updates);
+
+        writeLock.lock();
+        try {
+            // 대기열은 순서대로 비워지므로 마지막 변경이 반영되었으면 모두 반영된 것이다
+            if(updates.get(updates.size() - 1).applied) {
+                return;
+            }
+
+            TrieBatch batch = new TrieBatch(false);
+            Node root = batch.writable(rootNode);
+            TrieUpdate pending;
+
+            while((pending = pendingUpdates.poll()) != null) {
+                pending.node = apply(root, pending, batch);
+                pending.applied = true;
+            }
+
+            rootNode = root;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // 루트부터 단어 노드까지 경로를 쓰기 가능한 노드로 바꾸고 빈도수를 반영한다
+    private Node apply(Node root, TrieUpdate update, TrieBatch batch) {
+        TriePath path = update.path;
+        Node[] nodes = new Node[path.length + 1];
+        nodes[0] = root;
+
+        for(int i = 0; i < path.length; i++) {
+            Node parent = nodes[i];
+            Node child = parent.getChild(path.keys[i]);
+            child = child == null ? batch.create(path.labels[i]) : batch.writable(child);
+
+            parent.setChild(path.keys[i], child);
+            nodes[i + 1] = child;
+        }
+
+        updateCompletion(nodes, update);
+
+        return nodes[path.length];
+    }
+
+    /*
+     * 단어의 빈도수를 반영하고, 루트부터 단어 노드까지 경로에 있는 상위 K 목록만 갱신한다.
+     * 빈도수는 증가만 하므로 경로 밖의 목록은 바뀌지 않는다.
+     * 자식이 하나뿐인 노드는 자식과 같은 배열을 공유하므로 아래에서부터 갱신하며 공유를 유지한다.
+     */
+    private void updateCompletion(Node[] nodes, TrieUpdate update) {
+        Node node = nodes[nodes.length - 1];
+        int current = node.completion == null ? 0 : node.completion.frequency;
+        int frequency = update.increment ? current + update.frequency : update.frequency;
+
+        // 동시에 들어온 변경이 순서가 바뀌어 반영되더라도 빈도수가 줄어들지 않게 한다
+        if(node.completion != null && current >= frequency) {
+            return;
+        }
+
+        String word = node.completion != null ? node.completion.word
+                : update.word != null ? update.word
+                : wordOf(nodes);
+        Completion completion = new Completion(word, frequency);
+        node.completion = completion;
+
+        Completion[] childBefore = null;
+        Completion[] childAfter = null;
+
+        for(int i = nodes.length - 1; i >= 0; i--) {
+            Node target = nodes[i];
+            Completion[] before = target.topCompletions;
+            Completion[] after = before == childBefore
+                    ? childAfter
+                    : Completion.offer(before, completion, topK);
+
+            target.topCompletions = after;
+            childBefore = before;
+            childAfter = after;
+        }
+    }
+
+    private static String wordOf(Node[] nodes) {
+        StringBuilder word = new StringBuilder(nodes.length);
+
+        for(int i = 1; i < nodes.length; i++) {
+            Trie.appendLabel(word, nodes[i].label);
+        }
+
+        return word.toString();
+    }
+
+    // root 아래의 모든 단어
+    static List<Completion> completionsOf(Node root) {
+        List<Completion> result = new ArrayList<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+
+        while(!stack.isEmpty()) {
+            Node node = stack.pop();
+
+            if(node.completion != null) {
+                result.add(node.completion);
+            }
+
+            for(Node child : node.children) {
+                stack.push(child);
+            }
+        }
+
+        return result;
+    }
+}
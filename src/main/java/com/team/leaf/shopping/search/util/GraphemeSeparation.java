@@ -20,6 +20,88 @@ public class GraphemeSeparation {
     // 종성 ( ㄱ ~ ㅎ )
     private static final char[] finality = {0x0000, 0x3131, 0x3132, 0x3133, 0x3134, 0x3135, 0x3136, 0x3137, 0x3139, 0x313a, 0x313b, 0x313c, 0x313d, 0x313e, 0x313f, 0x3140, 0x3141, 0x3142, 0x3144, 0x3145, 0x3146, 0x3147, 0x3148, 0x314a, 0x314b, 0x314c, 0x314d, 0x314e};
 
+    private static final char SYLLABLE_BEGIN = 0xAC00;
+    private static final char SYLLABLE_END = 0xD7A3;
+
+    // 한글 문자 표 ( ㄱ-ㅎ, ㅏ-ㅣ, 가-힣 ). 문자 하나당 1 bit
+    private static final long[] hangulTable = new long[(Character.MAX_VALUE + 1) >>> 6];
+
+    static {
+        markHangul(0x3131, 0x3163);
+        markHangul(SYLLABLE_BEGIN, SYLLABLE_END);
+    }
+
+    private static void markHangul(int begin, int end) {
+        for(int c = begin; c <= end; c++) {
+            hangulTable[c >>> 6] |= 1L << c;
+        }
+    }
+
+    public static boolean isHangul(char c) {
+        return (hangulTable[c >>> 6] & (1L << c)) != 0;
+    }
+
+    // 완성형 한글 ( 가-힣 )
+    public static boolean isSyllable(char c) {
+        return c >= SYLLABLE_BEGIN && c <= SYLLABLE_END;
+    }
+
+    // 트라이 간선 문자가 경로에 더하는 자모 하나 ( 받침 없는 글자 -> 중성, 받침 있는 글자 -> 종성 )
+    public static char jamoOf(char edge) {
+        if(!isSyllable(edge)) {
+            return edge;
+        }
+
+        int uniVal = edge - SYLLABLE_BEGIN;
+        int finalIndex = uniVal % 28;
+
+        if(finalIndex != 0) {
+            return finality[finalIndex];
+        }
+
+        return neutrality[(uniVal / 28) % 21];
+    }
+
+    // 자음 ( ㄱ-ㅎ )
+    public static boolean isConsonant(char c) {
+        return c >= 0x3131 && c <= 0x314e;
+    }
+
+    // 완성형 글자의 초성, 그 외의 문자는 그대로 반환한다
+    public static char initialOf(char c) {
+        if(!isSyllable(c)) {
+            return c;
+        }
+
+        return initialConant[(c - SYLLABLE_BEGIN) / (21 * 28)];
+    }
+
+    /*
+     * 한글 한 글자를 트라이 간선 문자로 분해해 out[offset] 부터 쓰고 쓴 개수를 반환한다.
+     * 완성형 글자는 초성, 받침 없는 글자, ( 받침이 있으면 ) 받침 있는 글자 순서이고 자모는 그대로 한 개이다.
+     * separation / absorption 과 같은 결과를 객체 생성 없이 만든다.
+     */
+    public static int decompose(char c, char[] out, int offset) {
+        if(!isSyllable(c)) {
+            out[offset] = c;
+            return 1;
+        }
+
+        int uniVal = c - SYLLABLE_BEGIN;
+        int initial = uniVal / (21 * 28);
+        int finalIndex = uniVal % 28;
+
+        out[offset] = initialConant[initial];
+        out[offset + 1] = (char) (c - finalIndex);
+
+        if(finalIndex == 0) {
+            return 2;
+        }
+
+        out[offset + 2] = c;
+        return 3;
+    }
+
     public static List<Map<String, Integer>> separation(String word) {
         List<Map<String, Integer>> list = new ArrayList<Map<String, Integer>>();
 
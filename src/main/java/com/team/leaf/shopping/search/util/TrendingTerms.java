@@ -0,0 +1,269 @@
+package com.team.leaf.shopping.search.util;
+
+import com.team.leaf.shopping.search.dto.UtilInitDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * 최근 검색어 순위
+ * 검색어마다 시간 단위 버킷을 링으로 들고, 윈도우 밖으로 나간 버킷은 버린다.
+ * 점수는 버킷마다 2^((버킷 시각 - 기준 시각) / 반감기) 를 곱해 더하므로( forward decay )
+ * 오래된 검색일수록 적게 반영되고, 같은 기준 시각 안에서는 점수가 증가만 한다.
+ * 매 시간 기준 시각을 옮기며 점수와 순위를 다시 계산한다.
+ */
+@Component
+public class TrendingTerms {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    // 윈도우 크기 ( 시간 단위 버킷 수 )
+    @Value("${auto-complete.trending.window-hours:24}")
+    private int windowHours = 24;
+
+    @Value("${auto-complete.trending.half-life-hours:6}")
+    private double halfLifeHours = 6;
+
+    // 유지하는 최근 검색어 순위 개수
+    @Value("${auto-complete.trending.size:10}")
+    private int size = 10;
+
+    private final Map<String, TermCounter> counters = new ConcurrentHashMap<>();
+
+    private final ReentrantLock rankingLock = new ReentrantLock();
+    // 점수 내림차순. 바꿀 때마다 새 배열로 교체한다
+    private volatile TermCounter[] ranking = new TermCounter[0];
+    private volatile List<UtilInitDto> rankingResponse = List.of();
+
+    private volatile long landmarkHour = currentHour();
+
+    private class TermCounter {
+        final String word;
+        final char[] keys;
+        final int[] counts = new int[windowHours];
+        final long[] hours = new long[windowHours];
+        double score;
+        int windowCount;
+
+        TermCounter(String word) {
+            this.word = word;
+            TriePath path = TriePath.of(word);
+            this.keys = Arrays.copyOf(path.keys, path.length);
+            Arrays.fill(hours, -1);
+        }
+
+        synchronized void increase(long hour, int count) {
+            int index = (int) (hour % windowHours);
+
+            if(hours[index] != hour) {
+                expire(index);
+                hours[index] = hour;
+            }
+
+            counts[index] += count;
+            windowCount += count;
+            score += count * weight(hour);
+        }
+
+        // 윈도우 밖으로 나간 버킷을 버리고 현재 기준 시각으로 점수를 다시 계산한다
+        synchronized void recalculate(long hour) {
+            score = 0;
+
+            for(int i = 0; i < windowHours; i++) {
+                if(hours[i] >= 0 && hours[i] <= hour - windowHours) {
+                    expire(i);
+                }
+
+                if(hours[i] >= 0) {
+                    score += counts[i] * weight(hours[i]);
+                }
+            }
+        }
+
+        private void expire(int index) {
+            if(hours[index] >= 0) {
+                score -= counts[index] * weight(hours[index]);
+                windowCount -= counts[index];
+            }
+
+            hours[index] = -1;
+            counts[index] = 0;
+        }
+
+        synchronized double score() {
+            return score;
+        }
+
+        synchronized int windowCount() {
+            return windowCount;
+        }
+
+        boolean startsWith(TriePath prefix) {
+            if(prefix.length > keys.length) {
+                return false;
+            }
+
+            for(int i = 0; i < prefix.length; i++) {
+                if(keys[i] != prefix.keys[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private double weight(long hour) {
+        return Math.pow(2, (hour - landmarkHour) / halfLifeHours);
+    }
+
+    private static long currentHour() {
+        return System.currentTimeMillis() / HOUR;
+    }
+
+    // Trie 에 검색어가 추가될 때마다 호출된다
+    public void increase(String word) {
+        increase(word, 1);
+    }
+
+    // 다른 노드에서 받은 변경은 그동안 검색된 횟수를 한 번에 더한다
+    public void increase(String word, int count) {
+        TermCounter counter = counters.computeIfAbsent(word, TermCounter::new);
+        counter.increase(currentHour(), count);
+
+        rankingLock.lock();
+        try {
+            offer(counter);
+        } finally {
+            rankingLock.unlock();
+        }
+    }
+
+    // 점수는 증가만 하므로 바뀐 검색어 하나만 순위에 다시 넣으면 된다
+    private void offer(TermCounter counter) {
+        TermCounter[] before = ranking;
+        double score = counter.score();
+        List<TermCounter> after = new ArrayList<>(before.length + 1);
+        boolean added = false;
+
+        for(TermCounter other : before) {
+            if(other == counter) {
+                continue;
+            }
+
+            if(!added && score > other.score()) {
+                after.add(counter);
+                added = true;
+            }
+
+            after.add(other);
+        }
+
+        if(!added) {
+            after.add(counter);
+        }
+
+        if(after.size() > size) {
+            after.subList(size, after.size()).clear();
+        }
+
+        if(after.contains(counter)) {
+            publish(after.toArray(new TermCounter[0]));
+        }
+    }
+
+    private void publish(TermCounter[] ranking) {
+        List<UtilInitDto> response = new ArrayList<>(ranking.length);
+
+        for(TermCounter counter : ranking) {
+            response.add(new UtilInitDto(counter.word, counter.windowCount()));
+        }
+
+        this.ranking = ranking;
+        this.rankingResponse = Collections.unmodifiableList(response);
+    }
+
+    // 기준 시각을 옮기고 모든 검색어의 점수를 다시 계산한다. 윈도우 안에 검색이 없는 검색어는 지운다
+    @Scheduled(cron = "0 0 * * * *")
+    public void rotate() {
+        rankingLock.lock();
+        try {
+            long hour = currentHour();
+            landmarkHour = hour;
+
+            // 계산하는 동안 들어온 검색으로 점수가 바뀌어도 힙 순서가 깨지지 않도록 점수를 복사해 둔다
+            PriorityQueue<Map.Entry<TermCounter, Double>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+            Iterator<TermCounter> iterator = counters.values().iterator();
+
+            while(iterator.hasNext()) {
+                TermCounter counter = iterator.next();
+                counter.recalculate(hour);
+
+                if(counter.windowCount() == 0) {
+                    iterator.remove();
+                    continue;
+                }
+
+                heap.offer(Map.entry(counter, counter.score()));
+                if(heap.size() > size) {
+                    heap.poll();
+                }
+            }
+
+            TermCounter[] result = new TermCounter[heap.size()];
+            for(int i = result.length - 1; i >= 0; i--) {
+                result[i] = heap.poll().getKey();
+            }
+
+            publish(result);
+        } finally {
+            rankingLock.unlock();
+        }
+    }
+
+    // 미리 만들어 둔 순위를 그대로 반환한다
+    public List<UtilInitDto> getTrending() {
+        return rankingResponse;
+    }
+
+    /*
+     * 자동 완성 후보를 최근 검색 점수로 다시 정렬한다.
+     * 누적 빈도 상위 K 후보에 최근 검색어 순위 중 접두사가 같은 검색어를 더하고, 빈도수는 윈도우 안의 검색 수로 바꾼다.
+     */
+    public List<UtilInitDto> rank(String searchWord, List<UtilInitDto> candidates, int limit) {
+        TriePath prefix = TriePath.of(searchWord);
+        Set<String> words = new LinkedHashSet<>();
+
+        for(TermCounter counter : ranking) {
+            if(counter.startsWith(prefix)) {
+                words.add(counter.word);
+            }
+        }
+
+        for(UtilInitDto candidate : candidates) {
+            words.add(candidate.getWord());
+        }
+
+        Map<String, Double> scores = new HashMap<>();
+        List<UtilInitDto> result = new ArrayList<>(words.size());
+
+        for(String word : words) {
+            TermCounter counter = counters.get(word);
+            scores.put(word, counter == null ? 0 : counter.score());
+            result.add(new UtilInitDto(word, counter == null ? 0 : counter.windowCount()));
+        }
+
+        result.sort((o1, o2) -> Double.compare(scores.get(o2.getWord()), scores.get(o1.getWord())));
+
+        if(result.size() > limit) {
+            result.subList(limit, result.size()).clear();
+        }
+
+        return result;
+    }
+}
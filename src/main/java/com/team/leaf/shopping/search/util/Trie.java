@@ -3,210 +3,448 @@ package com.team.leaf.shopping.search.util;
 import com.team.leaf.shopping.search.dto.UtilInitDto;
 import com.team.leaf.shopping.search.entity.AutoComplete;
 import com.team.leaf.shopping.search.repository.AutoCompleteRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
-import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.*;
 
-@ToString
-class Node {
-    Map<String, Node> childedNode = new HashMap<>();
-    String word;
-    boolean isContainWord;
-    int frequency;
+class Completion {
+    static final Completion[] EMPTY = new Completion[0];
+
+    final String word;
+    final int frequency;
 
-    public Node(String word) {
+    Completion(String word, int frequency) {
         this.word = word;
-        this.frequency = 0;
+        this.frequency = frequency;
+    }
+
+    // 빈도수 내림차순 상위 K 목록에 단어를 반영한 새 배열을 만든다. 변경이 없으면 기존 배열을 그대로 반환
+    static Completion[] offer(Completion[] top, Completion completion, int limit) {
+        int current = -1;
+
+        for(int i = 0; i < top.length; i++) {
+            if(top[i].word == completion.word) {
+                current = i;
+                break;
+            }
+        }
+
+        if(current < 0 && top.length >= limit && top[top.length - 1].frequency >= completion.frequency) {
+            return top;
+        }
+
+        List<Completion> result = new ArrayList<>(top.length + 1);
+        boolean added = false;
+
+        for(int i = 0; i < top.length; i++) {
+            if(i == current) {
+                continue;
+            }
+
+            if(!added && top[i].frequency < completion.frequency) {
+                result.add(completion);
+                added = true;
+            }
+
+            result.add(top[i]);
+        }
+
+        if(!added) {
+            result.add(completion);
+        }
+
+        if(result.size() > limit) {
+            result.subList(limit, result.size()).clear();
+        }
+
+        return result.toArray(EMPTY);
+    }
+}
+
+/*
+ * 공개된 스냅샷에 속한 노드는 수정하지 않는다.
+ * 쓰기 스레드는 변경할 경로의 노드를 복사해서 고친 뒤 새 루트를 한 번에 공개한다.
+ */
+class Node {
+    private static final char[] EMPTY_KEYS = new char[0];
+    private static final Node[] EMPTY_CHILDREN = new Node[0];
+
+    // 자식 간선 문자 ( 오름차순 정렬, children 과 같은 인덱스 )
+    char[] keys = EMPTY_KEYS;
+    Node[] children = EMPTY_CHILDREN;
+    // 결과 단어를 만들 때 사용하는 원본 문자 ( 영문 대소문자 유지 )
+    char label;
+    // 이 노드에서 끝나는 단어 ( 없으면 null )
+    Completion completion;
+    // 서브트리 전체에서 빈도수가 높은 상위 K 개 단어
+    Completion[] topCompletions = Completion.EMPTY;
+
+    public Node(char label) {
+        this.label = label;
+    }
+
+    public Node getChild(char key) {
+        int index = Arrays.binarySearch(keys, key);
+
+        return index >= 0 ? children[index] : null;
+    }
+
+    // keys 는 삽입 시 항상 새 배열을 만들기 때문에 공유하고, children 은 교체될 수 있으므로 복사한다
+    public Node copy() {
+        Node node = new Node(label);
+        node.keys = keys;
+        node.children = children.length == 0 ? children : children.clone();
+        node.completion = completion;
+        node.topCompletions = topCompletions;
+
+        return node;
+    }
+
+    // 아직 공개되지 않은 노드에서만 호출한다
+    public void setChild(char key, Node child) {
+        int index = Arrays.binarySearch(keys, key);
+
+        if(index >= 0) {
+            children[index] = child;
+            return;
+        }
+
+        index = -(index + 1);
+        char[] newKeys = new char[keys.length + 1];
+        Node[] newChildren = new Node[children.length + 1];
+
+        System.arraycopy(keys, 0, newKeys, 0, index);
+        System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+        System.arraycopy(children, 0, newChildren, 0, index);
+        System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+
+        newKeys[index] = key;
+        newChildren[index] = child;
+
+        keys = newKeys;
+        children = newChildren;
+    }
+}
+
+// 단어를 트라이 간선 문자열로 분해한 결과
+class TriePath {
+    final char[] keys;
+    final char[] labels;
+    int length;
+
+    TriePath(int capacity) {
+        this.keys = new char[capacity];
+        this.labels = new char[capacity];
+    }
+
+    void add(char key, char label) {
+        keys[length] = key;
+        labels[length] = label;
+        length++;
     }
 
-    public Node(AutoComplete autoComplete) {
-        word = autoComplete.getWord();
-        frequency = autoComplete.getFrequency();
+    static TriePath of(String str) {
+        // 한글 한 글자는 최대 3개의 간선 ( 초성, 받침 없는 글자, 받침 있는 글자 ) 으로 분해된다
+        TriePath path = new TriePath(str.length() * 3);
+
+        for(int i = 0; i < str.length(); i++) {
+            char targetWord = str.charAt(i);
+
+            if(GraphemeSeparation.isHangul(targetWord)) {
+                // 자모 단독 입력 ( ㅋ, ㅏ ... ) 은 그대로 하나의 간선
+                int count = GraphemeSeparation.decompose(targetWord, path.keys, path.length);
+                System.arraycopy(path.keys, path.length, path.labels, path.length, count);
+                path.length += count;
+            } else {
+                path.add(Character.toLowerCase(targetWord), targetWord);
+            }
+        }
+
+        return path;
     }
 }
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class Trie {
 
-    Node rootNode = new Node("Empty");
     private final AutoCompleteRepository autoCompleteRepository;
+    private final AutoCompleteFrequencyBuffer frequencyBuffer;
+    private final ChosungIndex chosungIndex;
+    private final TrendingTerms trendingTerms;
+    private final AutoCompleteCache autoCompleteCache;
+    private final AutoCompleteDeltaPublisher deltaPublisher;
+
+    // 노드마다 미리 계산해 두는 자동 완성 결과 개수
+    @Value("${auto-complete.top-k:10}")
+    private int topK = 10;
+
+    @Value("${auto-complete.snapshot.path:auto-complete.snapshot}")
+    private String snapshotPath = "auto-complete.snapshot";
+
+    // 오타 허용 검색에서 한 번의 검색이 방문할 수 있는 최대 노드 수
+    @Value("${auto-complete.fuzzy.visit-limit:5000}")
+    private int fuzzyVisitLimit = 5000;
+
+    private CompletionTrie completionTrie;
+
+    // 초기화 전의 빈 트라이로 스냅샷을 덮어쓰지 않기 위한 표시
+    private volatile boolean initialized;
+
+    @PostConstruct
+    void createCompletionTrie() {
+        completionTrie = new CompletionTrie(topK);
+    }
 
+    /*
+     * 스냅샷 파일이 있으면 그 트라이를 읽고 스냅샷 이후 변경된 단어만 다시 반영한다.
+     * 스냅샷이 없거나 읽을 수 없으면 전체 단어로 트라이를 만든다.
+     */
     public void initTrie() {
-        List<AutoComplete> result = autoCompleteRepository.findAll();
+        TrieSnapshot.Loaded snapshot = new TrieSnapshot(Path.of(snapshotPath), topK).read();
+        Node root;
+        List<AutoComplete> result;
+
+        if(snapshot == null) {
+            root = new Node((char) 0);
+            result = autoCompleteRepository.findAll();
+        } else {
+            // 다른 서버와의 시계 차이를 고려해 여유를 두고 다시 읽는다. 같은 값을 다시 반영해도 결과는 같다
+            root = snapshot.root;
+            result = autoCompleteRepository.findAllByModifiedDateGreaterThanEqual(snapshot.takenAt.minusMinutes(1));
+        }
 
-        for(AutoComplete autoComplete : result) {
-            Node node = this.rootNode;
-            String str = autoComplete.getWord();
-            String [] completeWord = new String[str.length()];
-
-            for(int i = 0; i < completeWord.length; i++) {
-                String targetString = str.substring(i , i + 1);
-                completeWord[i] = targetString;
-
-                if(isHangul(targetString)) {
-                    node = addTrieNode_Hangul(targetString, node, completeWord, i);
-                } else {
-                    node = addTrieNode_English(targetString, node, completeWord);
-                }
-            }
+        List<CompletionTrie.TrieUpdate> updates = new ArrayList<>(result.size());
 
-            node.isContainWord = true;
-            node.frequency = autoComplete.getFrequency();
+        for(AutoComplete autoComplete : result) {
+            updates.add(new CompletionTrie.TrieUpdate(TriePath.of(autoComplete.getWord()), null, autoComplete.getFrequency(), false));
         }
+
+        completionTrie.rebuild(root, updates);
+        chosungIndex.rebuild(CompletionTrie.completionsOf(completionTrie.getRoot()));
+        autoCompleteCache.invalidateAll();
+        initialized = true;
     }
 
-    @Transactional
-    public Node insert(String str) {
-        Node node = this.rootNode;
-        Node currentNode;
-        String [] completeWord = new String[str.length()];
+    // 공개된 루트는 바뀌지 않으므로 락 없이 파일로 쓴다
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${auto-complete.snapshot.interval-ms:600000}",
+            initialDelayString = "${auto-complete.snapshot.interval-ms:600000}")
+    public void writeSnapshot() {
+        if(!initialized) {
+            return;
+        }
 
-        for(int i = 0; i < str.length(); i++) {
-            String targetString = str.substring(i , i + 1);
-            completeWord[i] = targetString;
+        LocalDateTime takenAt = LocalDateTime.now();
+        Node root = completionTrie.getRoot();
 
-            if(isHangul(targetString)) {
-                node = addTrieNode_Hangul(targetString, node, completeWord, i);
-            } else {
-                node = addTrieNode_English(targetString, node, completeWord);
-            }
+        try {
+            new TrieSnapshot(Path.of(snapshotPath), topK).write(root, takenAt);
+        } catch (IOException e) {
+            log.error("Failed to write trie snapshot : {}", e.getMessage());
         }
+    }
 
-        currentNode = createOrLoadAutoComplete(node.word);
+    // 트라이에는 바로 반영하고, DB 에는 AutoCompleteFrequencyBuffer 가 모아서 반영한다
+    public Node insert(String str) {
+        TriePath path = TriePath.of(str);
+        frequencyBuffer.increase(findWord(completionTrie.getRoot(), path));
 
-        node.isContainWord = true;
-        node.frequency = currentNode.frequency;
+        Node node = completionTrie.update(new CompletionTrie.TrieUpdate(path, null, 1, true));
+        chosungIndex.update(node.completion);
+        trendingTerms.increase(node.completion.word);
+        autoCompleteCache.invalidate(node.completion.word);
+        deltaPublisher.publish(node.completion.word);
 
         return node;
     }
 
-    public static boolean isHangul(String str) {
-        return str.matches(".*[ㄱ-ㅎㅏ-ㅣ가-힣]+.*");
-    }
+    // 다른 노드에서 받은 변경을 한 번에 반영한다. DB 에는 변경이 일어난 노드가 반영한다
+    void applyRemote(List<TrieDelta> deltas) {
+        if(deltas.isEmpty()) {
+            return;
+        }
 
+        List<CompletionTrie.TrieUpdate> updates = new ArrayList<>(deltas.size());
 
-    public static String convertArrayToString(String [] arr) {
-        return String.join("" , arr).replaceAll("null","");
-    }
+        for(TrieDelta delta : deltas) {
+            updates.add(new CompletionTrie.TrieUpdate(TriePath.of(delta.word), delta.word, delta.count, true));
+        }
 
-    public Node addTrieNode_Hangul(String word, Node node, String [] totalWord, int index) {
-        List<Map<String, Integer>> separatedWord = GraphemeSeparation.separation(word);
+        completionTrie.updateAll(updates);
 
-        for(int i = 0; i < separatedWord.size(); i++) {
-            List<String> resultWord = GraphemeSeparation.absorption(separatedWord.get(i));
+        List<Completion> completions = new ArrayList<>(updates.size());
 
-            for(int j = 0; j < resultWord.size(); j++) {
-                String targetWord = resultWord.get(j);
-                totalWord[index] = targetWord;
+        for(int i = 0; i < updates.size(); i++) {
+            Completion completion = updates.get(i).node.completion;
 
-                node = node.childedNode.computeIfAbsent(targetWord, key -> new Node(convertArrayToString(totalWord)));
-            }
+            completions.add(completion);
+            trendingTerms.increase(completion.word, deltas.get(i).count);
+            autoCompleteCache.invalidate(completion.word);
         }
 
-        return node;
+        chosungIndex.updateAll(completions);
     }
 
-    public Node addTrieNode_English(String str, Node node, String[] totalWord) {
+    public static boolean isHangul(String str) {
         for(int i = 0; i < str.length(); i++) {
-            node = node.childedNode.computeIfAbsent(str.substring(i , i + 1).toLowerCase(), key -> new Node(convertArrayToString(totalWord)));
+            if(GraphemeSeparation.isHangul(str.charAt(i))) {
+                return true;
+            }
         }
 
-        return node;
+        return false;
     }
 
-    protected Node createOrLoadAutoComplete(String word) {
-        AutoComplete autoComplete = autoCompleteRepository.findAutoCompleteByWord(word)
-                .orElseGet(() -> autoCompleteRepository.save(AutoComplete.createAutoComplete(word)));
+    // 완성형 한글 간선은 같은 글자의 앞선 간선( 초성, 받침 없는 글자 )을 대체하고, 나머지 간선은 뒤에 붙는다
+    public static void appendLabel(StringBuilder word, char label) {
+        if(GraphemeSeparation.isSyllable(label) && word.length() > 0) {
+            word.setCharAt(word.length() - 1, label);
+        } else {
+            word.append(label);
+        }
+    }
 
-        autoComplete.increaseFrequency(1);
+    // 이미 있는 노드는 그 노드의 원본 문자를 사용해 저장될 단어를 만든다
+    private static String findWord(Node root, TriePath path) {
+        StringBuilder word = new StringBuilder(path.length);
+        Node node = root;
+
+        for(int i = 0; i < path.length; i++) {
+            node = node == null ? null : node.getChild(path.keys[i]);
+            appendLabel(word, node == null ? path.labels[i] : node.label);
+        }
 
-        return new Node(autoComplete);
+        return word.toString();
     }
 
+    public int getTopK() {
+        return topK;
+    }
+
+    // 접두사 경로만 따라간 뒤 노드에 저장된 상위 K 목록을 반환한다
     public List<UtilInitDto> searchComplete(String searchWord) {
-        List<UtilInitDto> result = new ArrayList<>();
-        Node node = this.rootNode;
+        return toResponse(completionTrie.find(TriePath.of(searchWord)));
+    }
 
-        for(int i = 0; i < searchWord.length(); i++) {
-            String targetWord = searchWord.substring(i , i + 1);
+    private static class FuzzyState {
+        final Node node;
+        // 검색어 자모 접두사와 현재 경로 사이의 편집 거리 ( 레벤슈타인 오토마톤의 상태 )
+        final int[] distances;
 
-            if(isHangul(targetWord)) {
-                node = searchSearchWord_Hangul(targetWord, node);
-            } else {
-                node = searchSearchWord_English(targetWord, node);
-            }
+        FuzzyState(Node node, int[] distances) {
+            this.node = node;
+            this.distances = distances;
+        }
+    }
 
-            if(node == null) {
-                return result;
-            }
+    /*
+     * 검색어와 자모 편집 거리가 maxDistance 이하인 접두사를 가진 단어를 찾는다.
+     * 간선마다 자모 하나 ( 초성 / 중성 / 종성 ) 를 더하므로 자모 단위 거리로 계산된다.
+     * 얕은 노드부터 방문하고, 방문 노드 수가 fuzzyVisitLimit 을 넘으면 그때까지 찾은 결과를 반환한다.
+     */
+    public List<UtilInitDto> searchFuzzyComplete(String searchWord, int maxDistance) {
+        TriePath path = TriePath.of(searchWord);
+        char[] query = new char[path.length];
+
+        for(int i = 0; i < path.length; i++) {
+            query[i] = GraphemeSeparation.jamoOf(path.keys[i]);
         }
 
-        Queue<Node> queue = new LinkedList<>();
-        queue.offer(node);
+        int[] first = new int[query.length + 1];
+        for(int i = 0; i <= query.length; i++) {
+            first[i] = i;
+        }
 
-        while(!queue.isEmpty()) {
-            Node currentNode = queue.poll();
+        Map<String, Integer> distances = new HashMap<>();
+        Map<String, Completion> candidates = new HashMap<>();
+        Deque<FuzzyState> queue = new ArrayDeque<>();
+        Node root = completionTrie.getRoot();
+        int visited = 0;
 
-            if(currentNode.isContainWord) {
-                result.add(new UtilInitDto(currentNode.word, currentNode.frequency));
-            }
+        if(first[query.length] <= maxDistance) {
+            addFuzzyCandidates(root, first[query.length], candidates, distances);
+        } else {
+            queue.offer(new FuzzyState(root, first));
+        }
+
+        while(!queue.isEmpty() && visited < fuzzyVisitLimit) {
+            FuzzyState state = queue.poll();
+            int[] previous = state.distances;
 
-            for(String str : currentNode.childedNode.keySet()) {
-                queue.offer(currentNode.childedNode.get(str));
+            for(int i = 0; i < state.node.children.length && visited < fuzzyVisitLimit; i++) {
+                Node child = state.node.children[i];
+                char jamo = GraphemeSeparation.jamoOf(state.node.keys[i]);
+                int[] current = new int[query.length + 1];
+                int min = current[0] = previous[0] + 1;
+
+                for(int j = 1; j <= query.length; j++) {
+                    int cost = query[j - 1] == jamo ? 0 : 1;
+                    current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                    min = Math.min(min, current[j]);
+                }
+
+                visited++;
+
+                // 검색어 전체가 일치하면 하위 단어는 노드의 상위 K 목록으로 충분하다
+                if(current[query.length] <= maxDistance) {
+                    addFuzzyCandidates(child, current[query.length], candidates, distances);
+                } else if(min <= maxDistance) {
+                    queue.offer(new FuzzyState(child, current));
+                }
             }
         }
 
-        Collections.sort(result, new Comparator<UtilInitDto>() {
-            @Override
-            public int compare(UtilInitDto o1, UtilInitDto o2) {
-                return o2.getFrequency() - o1.getFrequency();
-            }
-        });
+        List<Completion> result = new ArrayList<>(candidates.values());
+        result.sort((o1, o2) -> o1.frequency != o2.frequency
+                ? o2.frequency - o1.frequency
+                : distances.get(o1.word) - distances.get(o2.word));
 
-        if(result.size() > 10) {
-            result.subList(10, result.size()).clear();
+        if(result.size() > topK) {
+            result.subList(topK, result.size()).clear();
         }
 
-        return result;
-    }
+        List<UtilInitDto> response = new ArrayList<>(result.size());
+        for(Completion completion : result) {
+            response.add(new UtilInitDto(completion.word, completion.frequency));
+        }
 
-    private Node searchSearchWord_English(String str, Node node) {
+        return response;
+    }
 
-        for(int i = 0; i < str.length(); i++) {
-            node = node.childedNode.getOrDefault(str.substring(i , i + 1).toLowerCase(), null );
+    private static void addFuzzyCandidates(Node node, int distance, Map<String, Completion> candidates, Map<String, Integer> distances) {
+        for(Completion completion : node.topCompletions) {
+            Integer before = distances.get(completion.word);
 
-            if(node == null) {
-                return null;
+            if(before == null || before > distance) {
+                distances.put(completion.word, distance);
+                candidates.put(completion.word, completion);
             }
         }
-
-        return node;
     }
 
-    private Node searchSearchWord_Hangul(String str, Node node) {
-        List<Map<String, Integer>> separatedWord = GraphemeSeparation.separation(str);
+    static List<UtilInitDto> toResponse(Node node) {
+        List<UtilInitDto> result = new ArrayList<>();
 
-        if(separatedWord.isEmpty()) {
-            return node.childedNode.getOrDefault(str, null);
+        if(node == null) {
+            return result;
         }
 
-        for(int i = 0; i < separatedWord.size(); i++) {
-            List<String> resultWord = GraphemeSeparation.absorption(separatedWord.get(i));
-
-            for(int j = 0; j < resultWord.size(); j++) {
-                node = node.childedNode.getOrDefault(resultWord.get(j), null);
-
-                if(node == null) {
-                    return null;
-                }
-            }
+        for(Completion completion : node.topCompletions) {
+            result.add(new UtilInitDto(completion.word, completion.frequency));
         }
 
-        return node;
+        return result;
     }
 
 }
@@ -0,0 +1,51 @@
+package com.team.leaf.shopping.search.util;
+
+/*
+ * 다른 노드로 보내는 트라이 변경
+ * count 는 그동안 이 노드에서 검색된 횟수이고, 받는 노드는 빈도수와 최근 검색어 순위에 그만큼 더한다.
+ * 여러 노드에서 같은 단어가 동시에 검색되어도 증가분이 모두 더해진다.
+ * 형식 : sequence \t nodeId \t count \t word
+ */
+class TrieDelta {
+
+    private static final char SEPARATOR = '\t';
+
+    final long sequence;
+    final String nodeId;
+    final String word;
+    final int count;
+
+    TrieDelta(long sequence, String nodeId, String word, int count) {
+        this.sequence = sequence;
+        this.nodeId = nodeId;
+        this.word = word;
+        this.count = count;
+    }
+
+    static TrieDelta merge(TrieDelta before, TrieDelta after) {
+        return new TrieDelta(0, before.nodeId, before.word, before.count + after.count);
+    }
+
+    TrieDelta withSequence(long sequence) {
+        return new TrieDelta(sequence, nodeId, word, count);
+    }
+
+    String encode() {
+        return String.valueOf(sequence) + SEPARATOR + nodeId + SEPARATOR + count + SEPARATOR + word;
+    }
+
+    // 단어에 탭이 있어도 마지막 필드이므로 그대로 읽는다. 형식이 맞지 않으면 null
+    static TrieDelta decode(String line) {
+        String[] fields = line.split(String.valueOf(SEPARATOR), 4);
+
+        if(fields.length != 4) {
+            return null;
+        }
+
+        try {
+            return new TrieDelta(Long.parseLong(fields[0]), fields[1], fields[3], Integer.parseInt(fields[2]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.team.leaf.shopping.search.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/*
+ * 트라이 스냅샷 파일
+ * 헤더 : MAGIC(int) VERSION(int) 스냅샷 시각(long, epoch second)
+ * 노드 : 전위 순회 순서로 key(char) label(char) 빈도수(int, 단어가 아니면 -1) 자식 수(int)
+ * 단어 문자열과 상위 K 목록은 저장하지 않고 읽을 때 label 로 다시 만든다.
+ */
+@Slf4j
+class TrieSnapshot {
+
+    private static final int MAGIC = 0x54524945;
+    private static final int VERSION = 1;
+    private static final int NO_WORD = -1;
+
+    private final Path path;
+    private final int topK;
+
+    static class Loaded {
+        final Node root;
+        final LocalDateTime takenAt;
+
+        Loaded(Node root, LocalDateTime takenAt) {
+            this.root = root;
+            this.takenAt = takenAt;
+        }
+    }
+
+    TrieSnapshot(Path path, int topK) {
+        this.path = path;
+        this.topK = topK;
+    }
+
+    // 임시 파일에 모두 쓴 뒤 교체하므로 쓰는 도중 종료되어도 이전 스냅샷이 남는다
+    void write(Node root, LocalDateTime takenAt) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(takenAt.toEpochSecond(ZoneOffset.UTC));
+
+            writeNode(out, (char) 0, root);
+        }
+
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // 긴 단어에서도 호출 스택이 넘치지 않도록 재귀 대신 스택으로 전위 순회한다
+    private void writeNode(DataOutputStream out, char key, Node root) throws IOException {
+        Deque<Node> nodes = new ArrayDeque<>();
+        Deque<Character> keys = new ArrayDeque<>();
+        nodes.push(root);
+        keys.push(key);
+
+        while(!nodes.isEmpty()) {
+            Node node = nodes.pop();
+
+            out.writeChar(keys.pop());
+            out.writeChar(node.label);
+            out.writeInt(node.completion == null ? NO_WORD : node.completion.frequency);
+            out.writeInt(node.children.length);
+
+            // 첫 번째 자식부터 꺼내지도록 역순으로 넣는다
+            for(int i = node.children.length - 1; i >= 0; i--) {
+                nodes.push(node.children[i]);
+                keys.push(node.keys[i]);
+            }
+        }
+    }
+
+    // 파일이 없거나 읽을 수 없으면 null 을 반환하고, 호출하는 쪽에서 전체 데이터로 트라이를 만든다
+    Loaded read() {
+        if(!Files.isRegularFile(path)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.warn("Ignore incompatible trie snapshot : {}", path);
+                return null;
+            }
+
+            LocalDateTime takenAt = LocalDateTime.ofEpochSecond(buffer.getLong(), 0, ZoneOffset.UTC);
+            buffer.getChar();
+            Node root = readNode(buffer, buffer.getChar(), new StringBuilder());
+
+            return new Loaded(root, takenAt);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read trie snapshot : {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // 읽는 중인 노드와 다음에 읽을 자식 위치, 이 노드까지의 단어 상태
+    private static class ReadFrame {
+        final Node node;
+        final int wordLength;
+        final char lastLabel;
+        int next;
+
+        ReadFrame(Node node, StringBuilder word) {
+            this.node = node;
+            this.wordLength = word.length();
+            this.lastLabel = wordLength > 0 ? word.charAt(wordLength - 1) : 0;
+        }
+    }
+
+    // writeNode 와 같은 이유로 스택을 사용한다. 자식을 모두 읽은 노드부터 상위 K 목록을 만든다
+    private Node readNode(MappedByteBuffer buffer, char label, StringBuilder word) {
+        Deque<ReadFrame> frames = new ArrayDeque<>();
+        Node root = readFields(buffer, label, word);
+        frames.push(new ReadFrame(root, word));
+
+        while(!frames.isEmpty()) {
+            ReadFrame frame = frames.peek();
+            Node node = frame.node;
+
+            if(frame.next < node.children.length) {
+                // 앞의 자식이 바꾼 단어를 이 노드까지의 단어로 되돌린다
+                word.setLength(frame.wordLength);
+                if(frame.wordLength > 0) {
+                    word.setCharAt(frame.wordLength - 1, frame.lastLabel);
+                }
+
+                node.keys[frame.next] = buffer.getChar();
+                char childLabel = buffer.getChar();
+
+                Trie.appendLabel(word, childLabel);
+                Node child = readFields(buffer, childLabel, word);
+                node.children[frame.next++] = child;
+
+                frames.push(new ReadFrame(child, word));
+                continue;
+            }
+
+            node.topCompletions = topCompletionsOf(node);
+            frames.pop();
+        }
+
+        return root;
+    }
+
+    // 노드 하나의 빈도수와 자식 수를 읽는다. 자식 배열은 자리만 만들어 두고 readNode 에서 채운다
+    private Node readFields(MappedByteBuffer buffer, char label, StringBuilder word) {
+        Node node = new Node(label);
+        int frequency = buffer.getInt();
+        int childCount = buffer.getInt();
+
+        if(frequency != NO_WORD) {
+            node.completion = new Completion(word.toString(), frequency);
+        }
+
+        if(childCount > 0) {
+            node.keys = new char[childCount];
+            node.children = new Node[childCount];
+        }
+
+        return node;
+    }
+
+    // 자식들의 상위 K 목록과 자기 단어를 합쳐 상위 K 목록을 만든다
+    private Completion[] topCompletionsOf(Node node) {
+        if(node.completion == null && node.children.length == 1) {
+            return node.children[0].topCompletions;
+        }
+
+        List<Completion> completions = new ArrayList<>();
+
+        if(node.completion != null) {
+            completions.add(node.completion);
+        }
+
+        for(Node child : node.children) {
+            for(Completion completion : child.topCompletions) {
+                completions.add(completion);
+            }
+        }
+
+        if(completions.isEmpty()) {
+            return Completion.EMPTY;
+        }
+
+        completions.sort((o1, o2) -> o2.frequency - o1.frequency);
+
+        if(completions.size() > topK) {
+            completions.subList(topK, completions.size()).clear();
+        }
+
+        return completions.toArray(Completion.EMPTY);
+    }
+}
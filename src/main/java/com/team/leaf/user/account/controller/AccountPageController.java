@@ -8,7 +8,7 @@ import com.team.leaf.shopping.coupon.dto.CouponResponse;
 import com.team.leaf.shopping.coupon.service.CouponService;
 import com.team.leaf.shopping.follow.dto.FollowRes;
 import com.team.leaf.shopping.follow.service.FollowService;
-import com.team.leaf.shopping.order.dto.OrderRes;
+import com.team.leaf.shopping.order.dto.OrderHistoryResponse;
 import com.team.leaf.shopping.order.service.OrderService;
 import com.team.leaf.shopping.product.review.dto.GetReviewRes;
 import com.team.leaf.shopping.product.review.dto.ModifyReviewReq;
@@ -30,7 +30,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequiredArgsConstructor
@@ -129,9 +128,12 @@ public class AccountPageController {
     }
 
     @GetMapping("/order")
-    @Operation(summary = "구매 목록 조회 API [ 사용자 인증 정보 필요 ]")
-    public ApiResponse<Map<String, List<OrderRes>>> getOrder(@LogIn @Parameter(hidden = true) AccountDetail accountDetail) {
-        return new ApiResponse<>(orderService.getOrders(accountDetail));
+    @Operation(summary = "구매 목록 조회 API ( status 로 상태 필터, cursor 가 있으면 그 다음 페이지 ) [ 사용자 인증 정보 필요 ]")
+    public ApiResponse<OrderHistoryResponse> getOrder(@LogIn @Parameter(hidden = true) AccountDetail accountDetail,
+                                                      @RequestParam(name = "status", required = false) String status,
+                                                      @RequestParam(name = "cursor", required = false) Long cursor,
+                                                      @RequestParam(name = "size", defaultValue = "20") int size) {
+        return new ApiResponse<>(orderService.getOrders(accountDetail, status, cursor, size));
     }
 
     @DeleteMapping("/order/{orderId}")
@@ -1,11 +1,13 @@
 package com.team.leaf.user.account.entity;
 
+import com.team.leaf.shopping.product.product.util.ProductDetailCacheListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDate;
 
 @Entity
+@EntityListeners(ProductDetailCacheListener.class)
 @Getter
 @Builder
 @NoArgsConstructor
@@ -1,5 +1,6 @@
 package com.team.leaf.user.account.service;
 
+import com.team.leaf.shopping.product.product.util.ProductDetailCacheListener;
 import com.team.leaf.user.account.config.SecurityConfig;
 import com.team.leaf.user.account.dto.common.ShippingAddressReq;
 import com.team.leaf.user.account.dto.common.UpdateAccountReq;
@@ -36,6 +37,7 @@ public class AccountPageService {
     private final SecurityConfig securityConfig;
     private final AccountService accountService;
     private final RedisTemplate redisTemplate;
+    private final ProductDetailCacheListener productDetailCacheListener;
 
     @Transactional
     public GetAccountRes getAccount(AccountDetail account) {
@@ -81,6 +83,11 @@ public class AccountPageService {
         }
 
         if (accountDto.getNickname() != null && !accountDto.getNickname().isEmpty()) {
+            // 닉네임은 상품 상세에 판매자 이름으로 보이므로 바뀌면 커밋된 뒤에 판매자 상품의 상세 캐시를 지운다
+            if (!accountDto.getNickname().equals(accountDetail.getNickname())) {
+                productDetailCacheListener.invalidateSeller(accountDetail.getUserId());
+            }
+
             accountDetail.setNickname(accountDto.getNickname());
         }
 
@@ -0,0 +1,149 @@
+package com.team.leaf.common;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * 테스트용 메모리 Redis
+ * 코드에서 사용하는 명령만 구현하고, 구현하지 않은 명령을 호출하면 UnsupportedOperationException 을 던진다.
+ * 발행한 메시지는 바로 전달하지 않고 모아 두므로 테스트에서 순서를 바꾸거나 빠뜨려 전달할 수 있다.
+ */
+public class RedisStandIn extends RedisTemplate<String, Object> {
+
+    private final Map<String, Object> values = new HashMap<>();
+    private final Map<String, Map<Object, Double>> sortedSets = new HashMap<>();
+    private final List<String> published = new ArrayList<>();
+
+    private final ValueOperations<String, Object> valueOperations = proxy(ValueOperations.class, (proxy, method, args) -> {
+        String name = method.getName();
+
+        if(name.equals("get")) {
+            return values.get((String) args[0]);
+        }
+        if(name.equals("set") && args.length == 2) {
+            values.put((String) args[0], args[1]);
+            return null;
+        }
+        if(name.equals("increment")) {
+            long delta = args.length == 1 ? 1 : ((Number) args[1]).longValue();
+            Object current = values.get((String) args[0]);
+            long next = (current == null ? 0 : Long.parseLong(current.toString())) + delta;
+
+            values.put((String) args[0], String.valueOf(next));
+            return next;
+        }
+
+        throw new UnsupportedOperationException(name);
+    });
+
+    private final ZSetOperations<String, Object> zSetOperations = proxy(ZSetOperations.class, (proxy, method, args) -> {
+        String name = method.getName();
+
+        if(name.equals("add") && args.length == 2) {
+            Map<Object, Double> set = sortedSets.computeIfAbsent((String) args[0], key -> new HashMap<>());
+            long added = 0;
+
+            for(Object entry : (Collection<?>) args[1]) {
+                ZSetOperations.TypedTuple<?> tuple = (ZSetOperations.TypedTuple<?>) entry;
+
+                if(set.put(tuple.getValue(), tuple.getScore()) == null) {
+                    added++;
+                }
+            }
+
+            return added;
+        }
+        if(name.equals("rangeByScore") && args.length == 3) {
+            Set<Object> result = new LinkedHashSet<>();
+
+            for(Map.Entry<Object, Double> entry : sorted((String) args[0])) {
+                if(entry.getValue() >= (double) args[1] && entry.getValue() <= (double) args[2]) {
+                    result.add(entry.getKey());
+                }
+            }
+
+            return result;
+        }
+        if(name.equals("zCard")) {
+            return (long) sortedSets.getOrDefault((String) args[0], Map.of()).size();
+        }
+        if(name.equals("removeRange")) {
+            List<Map.Entry<Object, Double>> entries = sorted((String) args[0]);
+            long start = Math.max(0, rank((long) args[1], entries.size()));
+            long end = Math.min(rank((long) args[2], entries.size()), entries.size() - 1);
+
+            for(long i = start; i <= end; i++) {
+                sortedSets.get((String) args[0]).remove(entries.get((int) i).getKey());
+            }
+
+            return (long) Math.max(0, end - start + 1);
+        }
+
+        throw new UnsupportedOperationException(name);
+    });
+
+    @SuppressWarnings("unchecked")
+    static <T> T proxy(Class<?> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(RedisStandIn.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if(method.getDeclaringClass() == Object.class) {
+                return method.getName().equals("equals") ? proxy == args[0]
+                        : method.getName().equals("hashCode") ? System.identityHashCode(proxy)
+                        : type.getSimpleName();
+            }
+
+            return handler.invoke(proxy, method, args);
+        });
+    }
+
+    private List<Map.Entry<Object, Double>> sorted(String key) {
+        List<Map.Entry<Object, Double>> entries = new ArrayList<>(sortedSets.getOrDefault(key, Map.of()).entrySet());
+        entries.sort(Map.Entry.comparingByValue());
+
+        return entries;
+    }
+
+    // 음수 순위는 뒤에서부터 센다
+    private static long rank(long index, int size) {
+        return index < 0 ? size + index : index;
+    }
+
+    @Override
+    public ValueOperations<String, Object> opsForValue() {
+        return valueOperations;
+    }
+
+    @Override
+    public ZSetOperations<String, Object> opsForZSet() {
+        return zSetOperations;
+    }
+
+    @Override
+    public void convertAndSend(String channel, Object message) {
+        published.add(message.toString());
+    }
+
+    // 발행 순서대로 모아 둔 메시지
+    public List<String> getPublished() {
+        return published;
+    }
+
+    // 로그에 남기기 전 상태를 만들기 위해 정렬 집합에서 값을 뺀다
+    public void removeFromSortedSet(String key, Collection<?> members) {
+        sortedSets.getOrDefault(key, new HashMap<>()).keySet().removeAll(members);
+    }
+
+    public Set<Object> sortedSetMembers(String key) {
+        return new LinkedHashSet<>(sortedSets.getOrDefault(key, Map.of()).keySet());
+    }
+}
@@ -0,0 +1,361 @@
+package com.team.leaf.common;
+
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+ * 테스트용 메모리 Redis ( 문자열 / 해시 / 집합 )
+ * 연결 하나를 흉내 낸다. MULTI 뒤의 명령은 모아 두었다가 EXEC 에서 실행하고, WATCH 한 키가 그 사이 바뀌었으면 빈 결과를 돌려준다.
+ * 다른 클라이언트가 끼어드는 경우는 beforeExec 로 EXEC 직전에 실행할 명령을 넣어 만든다.
+ * 스크립트는 자기 값일 때만 지우는 스크립트 ( get 비교 후 del ) 만 구현한다.
+ */
+public class StringRedisStandIn extends StringRedisTemplate {
+
+    private final Map<String, String> values = new HashMap<>();
+    private final Map<String, Map<Object, Object>> hashes = new HashMap<>();
+    private final Map<String, Set<String>> sets = new HashMap<>();
+    private final Map<String, Long> expireSeconds = new HashMap<>();
+
+    // 키마다 바뀐 횟수 ( WATCH 비교용 )
+    private final Map<String, Long> versions = new HashMap<>();
+    private final Map<String, Long> watched = new HashMap<>();
+
+    // MULTI 중이 아니면 null
+    private List<Supplier<Object>> queued;
+    private final List<Runnable> beforeExec = new ArrayList<>();
+    private int abortedCount;
+
+    private final ValueOperations<String, String> valueOperations = RedisStandIn.proxy(ValueOperations.class, (proxy, method, args) -> run(() -> {
+        String name = method.getName();
+        String key = (String) args[0];
+
+        if(name.equals("get")) {
+            return values.get(key);
+        }
+        if(name.equals("set") && args.length == 2) {
+            values.put(key, (String) args[1]);
+            changed(key);
+            return null;
+        }
+        if(name.equals("setIfAbsent") && (args.length == 2 || args.length == 4)) {
+            if(exists(key)) {
+                return false;
+            }
+
+            values.put(key, (String) args[1]);
+            if(args.length == 4) {
+                expireSeconds.put(key, ((TimeUnit) args[3]).toSeconds((long) args[2]));
+            }
+            changed(key);
+            return true;
+        }
+
+        throw new UnsupportedOperationException(name);
+    }));
+
+    private final HashOperations<String, Object, Object> hashOperations = RedisStandIn.proxy(HashOperations.class, (proxy, method, args) -> run(() -> {
+        String name = method.getName();
+        String key = (String) args[0];
+        Map<Object, Object> hash = hashes.getOrDefault(key, Map.of());
+
+        if(name.equals("entries")) {
+            return new HashMap<>(hash);
+        }
+        if(name.equals("get")) {
+            return hash.get(args[1]);
+        }
+        if(name.equals("multiGet")) {
+            List<Object> result = new ArrayList<>();
+            for(Object field : (Collection<?>) args[1]) {
+                result.add(hash.get(field));
+            }
+            return result;
+        }
+        if(name.equals("put")) {
+            hashes.computeIfAbsent(key, k -> new HashMap<>()).put(args[1], args[2]);
+            changed(key);
+            return null;
+        }
+        if(name.equals("putAll")) {
+            hashes.computeIfAbsent(key, k -> new HashMap<>()).putAll((Map<?, ?>) args[1]);
+            changed(key);
+            return null;
+        }
+        if(name.equals("delete")) {
+            long deleted = 0;
+            for(Object field : (Object[]) args[1]) {
+                if(hashes.containsKey(key) && hashes.get(key).remove(field) != null) {
+                    deleted++;
+                }
+            }
+            if(hashes.containsKey(key) && hashes.get(key).isEmpty()) {
+                hashes.remove(key);
+            }
+            changed(key);
+            return deleted;
+        }
+        if(name.equals("increment") && args[2] instanceof Long) {
+            Object current = hash.get(args[1]);
+            long next = (current == null ? 0 : Long.parseLong(current.toString())) + (long) args[2];
+
+            hashes.computeIfAbsent(key, k -> new HashMap<>()).put(args[1], String.valueOf(next));
+            changed(key);
+            return next;
+        }
+
+        throw new UnsupportedOperationException(name);
+    }));
+
+    private final SetOperations<String, String> setOperations = RedisStandIn.proxy(SetOperations.class, (proxy, method, args) -> run(() -> {
+        String name = method.getName();
+        String key = (String) args[0];
+
+        if(name.equals("add")) {
+            long added = 0;
+            for(Object member : (Object[]) args[1]) {
+                if(sets.computeIfAbsent(key, k -> new LinkedHashSet<>()).add((String) member)) {
+                    added++;
+                }
+            }
+            changed(key);
+            return added;
+        }
+        if(name.equals("pop") && args.length == 2) {
+            Set<String> set = sets.get(key);
+            if(set == null) {
+                return null;
+            }
+
+            List<String> popped = new ArrayList<>();
+            Iterator<String> iterator = set.iterator();
+            while(iterator.hasNext() && popped.size() < (long) args[1]) {
+                popped.add(iterator.next());
+                iterator.remove();
+            }
+            if(set.isEmpty()) {
+                sets.remove(key);
+            }
+            changed(key);
+            return popped;
+        }
+        if(name.equals("members")) {
+            return new LinkedHashSet<>(sets.getOrDefault(key, Set.of()));
+        }
+
+        throw new UnsupportedOperationException(name);
+    }));
+
+    private Object run(Supplier<Object> command) {
+        if(queued != null) {
+            queued.add(command);
+            return null;
+        }
+
+        return command.get();
+    }
+
+    private void changed(String key) {
+        versions.merge(key, 1L, Long::sum);
+    }
+
+    private boolean exists(String key) {
+        return values.containsKey(key) || hashes.containsKey(key) || sets.containsKey(key);
+    }
+
+    private boolean remove(String key) {
+        boolean existed = values.remove(key) != null | hashes.remove(key) != null | sets.remove(key) != null;
+        expireSeconds.remove(key);
+
+        if(existed) {
+            changed(key);
+        }
+
+        return existed;
+    }
+
+    @Override
+    public ValueOperations<String, String> opsForValue() {
+        return valueOperations;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <HK, HV> HashOperations<String, HK, HV> opsForHash() {
+        return (HashOperations<String, HK, HV>) (HashOperations<String, ?, ?>) hashOperations;
+    }
+
+    @Override
+    public SetOperations<String, String> opsForSet() {
+        return setOperations;
+    }
+
+    @Override
+    public <T> T execute(SessionCallback<T> session) {
+        return session.execute(this);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+        String source = script.getScriptAsString();
+
+        if(!source.contains("redis.call('get', KEYS[1]) == ARGV[1]") || !source.contains("redis.call('del', KEYS[1])")) {
+            throw new UnsupportedOperationException(source);
+        }
+
+        return (T) run(() -> args[0].equals(values.get(keys.get(0))) && remove(keys.get(0)) ? 1L : 0L);
+    }
+
+    @Override
+    public void watch(String key) {
+        watched.put(key, versions.getOrDefault(key, 0L));
+    }
+
+    @Override
+    public void unwatch() {
+        watched.clear();
+    }
+
+    @Override
+    public void multi() {
+        queued = new ArrayList<>();
+    }
+
+    @Override
+    public List<Object> exec() {
+        List<Supplier<Object>> commands = queued;
+        queued = null;
+
+        List<Runnable> others = new ArrayList<>(beforeExec);
+        beforeExec.clear();
+        others.forEach(Runnable::run);
+
+        boolean aborted = false;
+        for(Map.Entry<String, Long> entry : watched.entrySet()) {
+            if(!versions.getOrDefault(entry.getKey(), 0L).equals(entry.getValue())) {
+                aborted = true;
+            }
+        }
+        watched.clear();
+
+        if(aborted) {
+            abortedCount++;
+            return new ArrayList<>();
+        }
+
+        List<Object> results = new ArrayList<>();
+        for(Supplier<Object> command : commands) {
+            results.add(command.get());
+        }
+
+        return results;
+    }
+
+    @Override
+    public void discard() {
+        queued = null;
+        watched.clear();
+    }
+
+    @Override
+    public Boolean delete(String key) {
+        return (Boolean) run(() -> remove(key));
+    }
+
+    @Override
+    public Boolean expire(String key, long timeout, TimeUnit unit) {
+        return (Boolean) run(() -> {
+            if(!exists(key)) {
+                return false;
+            }
+
+            expireSeconds.put(key, unit.toSeconds(timeout));
+            return true;
+        });
+    }
+
+    @Override
+    public Boolean persist(String key) {
+        return (Boolean) run(() -> expireSeconds.remove(key) != null);
+    }
+
+    // * 로 끝나는 패턴만 지원한다
+    @Override
+    public Cursor<String> scan(ScanOptions options) {
+        String pattern = options.getPattern();
+        if(pattern == null || pattern.indexOf('*') != pattern.length() - 1) {
+            throw new UnsupportedOperationException(pattern);
+        }
+
+        String prefix = pattern.substring(0, pattern.length() - 1);
+        Set<String> keys = new TreeSet<>();
+        for(Set<String> names : List.of(values.keySet(), hashes.keySet(), sets.keySet())) {
+            for(String key : names) {
+                if(key.startsWith(prefix)) {
+                    keys.add(key);
+                }
+            }
+        }
+
+        Iterator<String> iterator = keys.iterator();
+        boolean[] closed = new boolean[1];
+
+        return RedisStandIn.proxy(Cursor.class, (proxy, method, args) -> {
+            String name = method.getName();
+
+            if(name.equals("hasNext")) {
+                return iterator.hasNext();
+            }
+            if(name.equals("next")) {
+                return iterator.next();
+            }
+            if(name.equals("close")) {
+                closed[0] = true;
+                return null;
+            }
+            if(name.equals("isClosed")) {
+                return closed[0];
+            }
+
+            throw new UnsupportedOperationException(name);
+        });
+    }
+
+    // 다음 EXEC 직전에 한 번 실행한다 ( 다른 클라이언트의 명령 )
+    public void beforeExec(Runnable command) {
+        beforeExec.add(command);
+    }
+
+    // WATCH 한 키가 바뀌어 취소된 EXEC 수
+    public int getAbortedCount() {
+        return abortedCount;
+    }
+
+    // TTL 이 지난 것처럼 키를 지운다
+    public void expireNow(String key) {
+        remove(key);
+    }
+
+    // 만료 시간이 없으면 null
+    public Long expireSecondsOf(String key) {
+        return expireSeconds.get(key);
+    }
+}
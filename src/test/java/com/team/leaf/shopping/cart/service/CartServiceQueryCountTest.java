@@ -0,0 +1,146 @@
+package com.team.leaf.shopping.cart.service;
+
+import com.team.leaf.common.config.QueryDslConfig;
+import com.team.leaf.shopping.cart.dto.CartResponse;
+import com.team.leaf.shopping.cart.entity.Cart;
+import com.team.leaf.shopping.cart.entity.CartProductOption;
+import com.team.leaf.shopping.cart.util.CartPricingCache;
+import com.team.leaf.shopping.cart.util.CartPricingEngine;
+import com.team.leaf.shopping.cart.util.CartPricingListener;
+import com.team.leaf.shopping.cart.util.HotCartStore;
+import com.team.leaf.shopping.coupon.entity.Coupon;
+import com.team.leaf.shopping.coupon.entity.DownloadCoupon;
+import com.team.leaf.shopping.product.product.entity.Product;
+import com.team.leaf.shopping.product.product.entity.ProductOption;
+import com.team.leaf.shopping.product.product.util.CategoryProductListener;
+import com.team.leaf.shopping.product.product.util.ProductDetailCacheListener;
+import com.team.leaf.shopping.product.product.util.ProductIndexListener;
+import com.team.leaf.user.account.entity.AccountDetail;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ * 장바구니 조회가 담은 상품 수와 관계없이 정해진 수의 쿼리만 실행하는지 확인한다.
+ * 장바구니 + 상품 / 상품 옵션 / 상품 쿠폰 / 고른 옵션 4 번, 쿠폰 캐시가 비어 있으면 상품 쿠폰 / 내려받은 쿠폰 2 번을 더 읽는다.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database=h2",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true",
+        "spring.sql.init.mode=never"
+})
+@Import({QueryDslConfig.class, CartService.class, CartPricingEngine.class, CartPricingCache.class})
+class CartServiceQueryCountTest {
+
+    private static final int CART_QUERIES = 4;
+    private static final int PRICING_QUERIES = 2;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    // Redis 장바구니는 꺼 둔다 ( isEnabled 가 false )
+    @MockBean
+    private HotCartStore hotCartStore;
+
+    @MockBean
+    private RedisTemplate<String, Object> redisTemplate;
+
+    // 엔티티 리스너는 색인 / 캐시를 건드리지 않도록 비워 둔다
+    @MockBean
+    private ProductIndexListener productIndexListener;
+
+    @MockBean
+    private ProductDetailCacheListener productDetailCacheListener;
+
+    @MockBean
+    private CartPricingListener cartPricingListener;
+
+    @MockBean
+    private CategoryProductListener categoryProductListener;
+
+    private AccountDetail seller;
+
+    @BeforeEach
+    void setUp() {
+        seller = entityManager.persist(AccountDetail.joinAccount("seller@leaf.com", "password", "01000000000", "seller"));
+    }
+
+    @Test
+    void queryCountDoesNotGrowWithCartSize() {
+        AccountDetail small = buyer("small@leaf.com", 2);
+        AccountDetail large = buyer("large@leaf.com", 20);
+
+        assertEquals(CART_QUERIES + PRICING_QUERIES, queriesOf(small));
+        assertEquals(CART_QUERIES + PRICING_QUERIES, queriesOf(large));
+    }
+
+    @Test
+    void cachedCouponsSkipPricingQueries() {
+        AccountDetail buyer = buyer("buyer@leaf.com", 5);
+
+        assertEquals(CART_QUERIES + PRICING_QUERIES, queriesOf(buyer));
+        assertEquals(CART_QUERIES, queriesOf(buyer));
+    }
+
+    @Test
+    void emptyCartReadsOnlyTheCart() {
+        AccountDetail buyer = buyer("empty@leaf.com", 0);
+
+        assertEquals(1, queriesOf(buyer));
+    }
+
+    // 상품마다 옵션 2 개, 쿠폰 1 개를 두고, 장바구니에는 고른 옵션 1 개와 내려받은 쿠폰을 둔다
+    private AccountDetail buyer(String email, int products) {
+        AccountDetail buyer = entityManager.persist(AccountDetail.joinAccount(email, "password", "01011111111", email));
+
+        for(int i = 0; i < products; i++) {
+            Product product = entityManager.persist(Product.builder().title("상품 " + i).price(1000 * (i + 1))
+                    .discountRate(5).seller(seller).build());
+
+            entityManager.persist(ProductOption.builder().keyData("색상").valueData("검정").product(product).build());
+            entityManager.persist(ProductOption.builder().keyData("색상").valueData("흰색").product(product).build());
+
+            Coupon coupon = entityManager.persist(Coupon.builder().couponName("쿠폰 " + i).saleRate(10).product(product).build());
+            entityManager.persist(DownloadCoupon.createDownloadCoupon(buyer, coupon));
+
+            Cart cart = Cart.createCart(product, buyer);
+            cart.increaseAmount(2);
+            entityManager.persist(cart);
+            entityManager.persist(CartProductOption.builder().selectKeyData("색상").selectValueData("검정").cart(cart).build());
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        return buyer;
+    }
+
+    private long queriesOf(AccountDetail buyer) {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        CartResponse cartResponse = cartService.getCart(buyer);
+        entityManager.clear();
+
+        assertEquals(cartResponse.getProductResponseList().size(), cartResponse.getProductResponseList().stream()
+                .filter(product -> product.getCouponId() != null).count());
+
+        return statistics.getPrepareStatementCount();
+    }
+}
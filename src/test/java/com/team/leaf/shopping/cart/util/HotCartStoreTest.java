@@ -0,0 +1,171 @@
+package com.team.leaf.shopping.cart.util;
+
+import com.team.leaf.common.StringRedisStandIn;
+import com.team.leaf.shopping.cart.dto.CartLine;
+import com.team.leaf.shopping.cart.service.CartSyncService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Redis 장바구니를 메모리 Redis 에 올려
+ * 다른 요청이 끼어들면 다시 시도하는지, 같은 변경을 DB 에 한 번만 반영하는지, 반영하지 못하고 내려간 장바구니를 시작할 때 반영하는지 확인한다.
+ */
+class HotCartStoreTest {
+
+    private static final long USER = 7;
+    private static final String KEY = "cart:user:" + USER;
+    private static final String DIRTY_KEY = "cart:dirty";
+    private static final String LOCK_KEY = "cart:flush-lock:" + USER;
+
+    private StringRedisStandIn redis;
+    private RecordingCartSync cartSync;
+    private HotCartStore store;
+
+    // DB 대신 사용자마다 마지막으로 저장한 장바구니를 남긴다
+    static class RecordingCartSync extends CartSyncService {
+        final Map<Long, List<CartLine>> saved = new HashMap<>();
+        int saveCount;
+        Runnable duringSave = () -> {};
+
+        RecordingCartSync() {
+            super(null, null, null, null);
+        }
+
+        @Override
+        public List<CartLine> loadCart(long userId) {
+            return new ArrayList<>(saved.getOrDefault(userId, new ArrayList<>()));
+        }
+
+        @Override
+        public void saveCart(long userId, List<CartLine> lines) {
+            duringSave.run();
+            saveCount++;
+            saved.put(userId, lines);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis = new StringRedisStandIn();
+        cartSync = new RecordingCartSync();
+        store = new HotCartStore(redis, cartSync);
+
+        ReflectionTestUtils.setField(store, "enabled", true);
+    }
+
+    @Test
+    void concurrentChangeRetriesWithoutLosingIt() {
+        store.add(USER, 1, new ArrayList<>());
+
+        // 읽은 뒤 EXEC 전에 다른 서버가 같은 상품의 수량을 5 로 바꾼다
+        redis.beforeExec(() -> redis.opsForHash().put(KEY, "1", "{\"productId\":1,\"amount\":5,\"sequence\":0,\"selectOptions\":[]}"));
+        store.add(USER, 1, new ArrayList<>());
+
+        assertEquals(1, redis.getAbortedCount());
+        assertEquals(6, store.getCart(USER).get(0).getAmount());
+        assertEquals("2", redis.opsForHash().get(KEY, "_version"));
+    }
+
+    @Test
+    void flushSavesEachChangeOnce() {
+        store.add(USER, 1, new ArrayList<>());
+        store.add(USER, 2, new ArrayList<>());
+
+        store.flush();
+        store.flush();
+
+        assertEquals(1, cartSync.saveCount);
+        assertEquals(List.of(1L, 2L), productIds(cartSync.saved.get(USER)));
+        assertEquals(redis.opsForHash().get(KEY, "_version"), redis.opsForHash().get(KEY, "_flushed"));
+        assertTrue(redis.opsForSet().members(DIRTY_KEY).isEmpty());
+        assertEquals(Long.valueOf(TimeUnit.HOURS.toSeconds(168)), redis.expireSecondsOf(KEY));
+
+        // 다시 시작해도 반영한 장바구니는 또 쓰지 않는다
+        store.reconcile();
+        assertEquals(1, cartSync.saveCount);
+
+        store.remove(USER, List.of(1L));
+        assertNull(redis.expireSecondsOf(KEY));
+
+        store.flush();
+        assertEquals(2, cartSync.saveCount);
+        assertEquals(List.of(2L), productIds(cartSync.saved.get(USER)));
+    }
+
+    @Test
+    void failedFlushIsRetried() {
+        store.add(USER, 1, new ArrayList<>());
+        cartSync.duringSave = () -> {
+            throw new RuntimeException("database is down");
+        };
+
+        store.flush();
+        assertEquals(Set.of(String.valueOf(USER)), redis.opsForSet().members(DIRTY_KEY));
+
+        cartSync.duringSave = () -> {};
+        store.flush();
+
+        assertEquals(List.of(1L), productIds(cartSync.saved.get(USER)));
+        assertTrue(redis.opsForSet().members(DIRTY_KEY).isEmpty());
+    }
+
+    @Test
+    void reconcileFlushesCartsLeftUnflushed() {
+        store.add(USER, 1, new ArrayList<>());
+        store.add(8, 3, new ArrayList<>());
+        store.flush();
+
+        // 반영 표시를 꺼낸 뒤 DB 에 쓰기 전에 내려간 상태
+        store.add(USER, 2, new ArrayList<>());
+        redis.opsForSet().pop(DIRTY_KEY, 100);
+
+        store.reconcile();
+
+        assertEquals(3, cartSync.saveCount);
+        assertEquals(List.of(1L, 2L), productIds(cartSync.saved.get(USER)));
+        assertEquals(redis.opsForHash().get(KEY, "_version"), redis.opsForHash().get(KEY, "_flushed"));
+    }
+
+    @Test
+    void flushKeepsLockTakenByAnotherServer() {
+        store.add(USER, 1, new ArrayList<>());
+
+        // 반영이 오래 걸려 락이 만료되고 다른 서버가 락을 잡는다
+        cartSync.duringSave = () -> {
+            redis.expireNow(LOCK_KEY);
+            redis.opsForValue().setIfAbsent(LOCK_KEY, "other", 60, TimeUnit.SECONDS);
+        };
+        store.flush();
+
+        assertEquals("other", redis.opsForValue().get(LOCK_KEY));
+
+        // 다른 서버가 반영하는 동안에는 다음 주기로 미룬다
+        store.add(USER, 2, new ArrayList<>());
+        store.flush();
+
+        assertEquals(1, cartSync.saveCount);
+        assertEquals(Set.of(String.valueOf(USER)), redis.opsForSet().members(DIRTY_KEY));
+    }
+
+    private static List<Long> productIds(List<CartLine> lines) {
+        List<Long> productIds = new ArrayList<>();
+
+        for(CartLine line : lines) {
+            productIds.add(line.getProductId());
+        }
+
+        return productIds;
+    }
+}
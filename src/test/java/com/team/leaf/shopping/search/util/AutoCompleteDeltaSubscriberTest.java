@@ -0,0 +1,207 @@
+package com.team.leaf.shopping.search.util;
+
+import com.team.leaf.common.RedisStandIn;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ * 다른 노드의 변경이 순서가 바뀌어 오거나 순번이 비어 있을 때
+ * 순번 순서대로 한 번씩만 반영하고, 빈 순번이 채워지지 않으면 트라이를 다시 만드는지 확인한다.
+ */
+class AutoCompleteDeltaSubscriberTest {
+
+    private RedisStandIn redis;
+    private RecordingTrie trie;
+    private AutoCompleteDeltaPublisher nodeA;
+    private AutoCompleteDeltaPublisher nodeB;
+    private AutoCompleteDeltaPublisher self;
+    private AutoCompleteDeltaSubscriber subscriber;
+
+    // 트라이를 만들거나 변경을 반영한 기록만 남긴다
+    static class RecordingTrie extends Trie {
+        int rebuildCount;
+        final List<String> applied = new ArrayList<>();
+
+        RecordingTrie() {
+            super(null, null, null, null, null, null);
+        }
+
+        @Override
+        public void initTrie() {
+            rebuildCount++;
+        }
+
+        @Override
+        void applyRemote(List<TrieDelta> deltas) {
+            for(TrieDelta delta : deltas) {
+                applied.add(delta.word + ":" + delta.count);
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis = new RedisStandIn();
+        trie = new RecordingTrie();
+        nodeA = new AutoCompleteDeltaPublisher(redis);
+        nodeB = new AutoCompleteDeltaPublisher(redis);
+        self = new AutoCompleteDeltaPublisher(redis);
+        subscriber = new AutoCompleteDeltaSubscriber(trie, self, redis);
+
+        subscriber.initTrie();
+    }
+
+    @Test
+    void laterBatchWaitsUntilEarlierBatchIsLogged() {
+        publish(nodeA, "a1", "a2", "a3", "a4", "a5");
+        publish(nodeB, "b1", "b2", "b3", "b4", "b5");
+
+        // A 가 순번( 1~5 )을 받았지만 로그에 남기기 전에 B 의 순번( 6~10 )이 먼저 전달된 경우
+        List<String> messages = redis.getPublished();
+        List<String> batchA = List.of(messages.get(0).split("\n"));
+        redis.removeFromSortedSet(AutoCompleteDeltaPublisher.LOG_KEY, batchA);
+
+        deliver(messages.get(1));
+        subscriber.retryGap();
+        assertEquals(List.of(), trie.applied);
+
+        // A 가 로그에 남기고 발행하면 1~10 이 순번 순서대로 반영된다
+        redis.opsForZSet().add(AutoCompleteDeltaPublisher.LOG_KEY, tuples(batchA));
+        deliver(messages.get(0));
+
+        assertEquals(words("a1", "a2", "a3", "a4", "a5", "b1", "b2", "b3", "b4", "b5"), sorted(trie.applied, 5));
+        assertEquals(1, trie.rebuildCount);
+    }
+
+    @Test
+    void missedMessageIsReadFromLog() {
+        publish(nodeA, "a1", "a2");
+        publish(nodeB, "b1");
+
+        // A 의 메시지를 놓쳐도 B 의 메시지를 받을 때 로그에서 함께 읽는다
+        deliver(redis.getPublished().get(1));
+
+        assertEquals(words("a1", "a2", "b1"), sorted(trie.applied, 2));
+
+        // 늦게 도착한 A 의 메시지는 다시 반영하지 않는다
+        deliver(redis.getPublished().get(0));
+        deliver(redis.getPublished().get(1));
+
+        assertEquals(3, trie.applied.size());
+    }
+
+    @Test
+    void countsFromEveryNodeAreApplied() {
+        nodeA.publish("가방");
+        nodeA.publish("가방");
+        nodeA.flush();
+        nodeB.publish("가방");
+        nodeB.flush();
+
+        deliverAll();
+
+        assertEquals(List.of("가방:2", "가방:1"), trie.applied);
+    }
+
+    @Test
+    void ownDeltasAdvanceSequenceWithoutApplying() {
+        self.publish("mine");
+        self.flush();
+        publish(nodeA, "theirs");
+
+        deliverAll();
+
+        assertEquals(List.of("theirs:1"), trie.applied);
+    }
+
+    @Test
+    void gapThatNeverFillsRebuildsAfterTimeout() {
+        publish(nodeA, "lost");
+        publish(nodeB, "b1", "b2");
+
+        // A 가 순번만 받고 로그에 남기지 못한 경우
+        redis.removeFromSortedSet(AutoCompleteDeltaPublisher.LOG_KEY, List.of(redis.getPublished().get(0).split("\n")));
+        deliver(redis.getPublished().get(1));
+
+        // 제한 시간 전에는 기다린다
+        subscriber.retryGap();
+        assertEquals(1, trie.rebuildCount);
+        assertEquals(List.of(), trie.applied);
+
+        ReflectionTestUtils.setField(subscriber, "gapTimeoutMs", 0L);
+        subscriber.retryGap();
+        assertEquals(2, trie.rebuildCount);
+
+        // 다시 만든 트라이에는 이미 포함된 순번이므로 반영하지 않고 다음 순번부터 이어서 반영한다
+        publish(nodeB, "b3");
+        deliver(redis.getPublished().get(2));
+        subscriber.retryGap();
+
+        assertEquals(List.of("b3:1"), trie.applied);
+        assertEquals(2, trie.rebuildCount);
+    }
+
+    private void publish(AutoCompleteDeltaPublisher publisher, String... words) {
+        for(String word : words) {
+            publisher.publish(word);
+        }
+
+        publisher.flush();
+    }
+
+    private void deliver(String message) {
+        subscriber.onMessage(new DefaultMessage(AutoCompleteDeltaPublisher.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                message.getBytes(StandardCharsets.UTF_8)), null);
+    }
+
+    private void deliverAll() {
+        for(String message : redis.getPublished()) {
+            deliver(message);
+        }
+    }
+
+    private static Set<ZSetOperations.TypedTuple<Object>> tuples(List<String> lines) {
+        Set<ZSetOperations.TypedTuple<Object>> tuples = new HashSet<>();
+
+        for(String line : lines) {
+            tuples.add(new DefaultTypedTuple<>(line, (double) TrieDelta.decode(line).sequence));
+        }
+
+        return tuples;
+    }
+
+    private static List<String> words(String... words) {
+        List<String> result = new ArrayList<>();
+
+        for(String word : words) {
+            result.add(word + ":1");
+        }
+
+        return result;
+    }
+
+    // 한 묶음 안의 순서는 정해져 있지 않으므로 묶음마다 정렬해서 비교한다
+    private static List<String> sorted(List<String> applied, int batchSize) {
+        List<String> result = new ArrayList<>();
+
+        for(int i = 0; i < applied.size(); i += batchSize) {
+            List<String> batch = new ArrayList<>(applied.subList(i, Math.min(i + batchSize, applied.size())));
+            batch.sort(null);
+            result.addAll(batch);
+        }
+
+        return result;
+    }
+}
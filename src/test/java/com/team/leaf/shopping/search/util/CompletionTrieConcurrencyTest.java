@@ -0,0 +1,150 @@
+package com.team.leaf.shopping.search.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * 여러 스레드가 같은 트라이에 동시에 쓰고 읽을 때
+ * 증가가 하나도 빠지지 않고, 읽는 쪽은 항상 정렬된 상위 K 목록과 줄지 않는 빈도수를 보는지 확인한다.
+ */
+class CompletionTrieConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS = 20000;
+    private static final int TOP_K = 10;
+
+    // 접두사 검사가 문자열 startsWith 와 같도록 접두사의 마지막 글자 뒤에는 새 글자로 시작하는 접미사만 붙인다
+    private static final String[] PREFIXES = {"가방", "노트북", "app", "note"};
+    private static final String[] SUFFIXES = {"", "끈", "커버", "세트", "케이스", "1", "2", "3", "lite", "pro", "max", "mini"};
+
+    @Test
+    void concurrentUpdatesKeepEveryIncrement() throws Exception {
+        CompletionTrie trie = new CompletionTrie(TOP_K);
+        List<String> words = words();
+        Map<String, AtomicInteger> expected = new ConcurrentHashMap<>();
+
+        for(String word : words) {
+            expected.put(word, new AtomicInteger());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for(int t = 0; t < THREADS; t++) {
+                long seed = t;
+
+                futures.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    Map<String, Integer> seen = new HashMap<>();
+                    start.await();
+
+                    for(int i = 0; i < OPERATIONS; i++) {
+                        if(random.nextInt(4) == 0) {
+                            checkSnapshot(trie.getRoot(), seen);
+                            continue;
+                        }
+
+                        // 단어마다 빈도수 차이가 나도록 앞쪽 단어를 더 자주 넣는다
+                        String word = words.get(Math.min(random.nextInt(words.size()), random.nextInt(words.size())));
+                        trie.update(new CompletionTrie.TrieUpdate(TriePath.of(word), word, 1, true));
+                        expected.get(word).incrementAndGet();
+                    }
+
+                    return null;
+                }));
+            }
+
+            start.countDown();
+
+            for(Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for(String word : words) {
+            int count = expected.get(word).get();
+            Node node = trie.find(TriePath.of(word));
+
+            if(count == 0) {
+                continue;
+            }
+
+            assertNotNull(node, word);
+            assertNotNull(node.completion, word);
+            assertEquals(count, node.completion.frequency, word);
+        }
+
+        assertTopK(trie.getRoot(), "", expected);
+        for(String prefix : PREFIXES) {
+            assertTopK(trie.find(TriePath.of(prefix)), prefix, expected);
+        }
+    }
+
+    private static List<String> words() {
+        List<String> words = new ArrayList<>();
+
+        for(String prefix : PREFIXES) {
+            for(String suffix : SUFFIXES) {
+                words.add(prefix + suffix);
+            }
+        }
+
+        return words;
+    }
+
+    // 공개된 스냅샷은 정렬되어 있고, 같은 스레드가 다시 읽은 빈도수는 줄지 않는다
+    private static void checkSnapshot(Node root, Map<String, Integer> seen) {
+        Completion[] top = root.topCompletions;
+        assertTrue(top.length <= TOP_K);
+
+        for(int i = 0; i < top.length; i++) {
+            if(i > 0) {
+                assertTrue(top[i - 1].frequency >= top[i].frequency, "top-K is not sorted");
+            }
+
+            Integer before = seen.put(top[i].word, top[i].frequency);
+            assertTrue(before == null || before <= top[i].frequency, "frequency went backwards : " + top[i].word);
+        }
+    }
+
+    // 동점 단어의 순서는 정해져 있지 않으므로 빈도수 목록으로 비교한다
+    private static void assertTopK(Node node, String prefix, Map<String, AtomicInteger> expected) {
+        List<Integer> frequencies = new ArrayList<>();
+
+        for(Map.Entry<String, AtomicInteger> entry : expected.entrySet()) {
+            if(entry.getKey().startsWith(prefix) && entry.getValue().get() > 0) {
+                frequencies.add(entry.getValue().get());
+            }
+        }
+
+        frequencies.sort((o1, o2) -> o2 - o1);
+        List<Integer> expectedTop = frequencies.subList(0, Math.min(TOP_K, frequencies.size()));
+
+        List<Integer> actualTop = new ArrayList<>();
+        for(Completion completion : node.topCompletions) {
+            actualTop.add(completion.frequency);
+        }
+
+        assertEquals(expectedTop, actualTop, prefix);
+    }
+}